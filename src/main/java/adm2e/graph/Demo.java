@@ -1,8 +1,25 @@
 package adm2e.graph;
 
+import adm2e.graph.components.ConnectedComponents;
+import adm2e.graph.components.ReachabilityIndex;
+import adm2e.graph.components.StronglyConnectedComponents;
+import adm2e.graph.components.WeaklyConnectedComponents;
+import adm2e.graph.ioutils.EdgeListLoader;
+import adm2e.graph.ioutils.GraphSnapshot;
+import adm2e.graph.ioutils.OffHeapGraphFile;
 import adm2e.graph.representations.AdjacencyListGraph;
+import adm2e.graph.representations.CsrGraph;
 import adm2e.graph.representations.DirectedGraph;
+import adm2e.graph.representations.EdgeIndexedGraph;
+import adm2e.graph.representations.VertexReordering;
+import adm2e.graph.shortestpaths.DistanceHeuristic;
+import adm2e.graph.shortestpaths.LandmarkIndex;
+import adm2e.graph.shortestpaths.WeightedPath;
+import adm2e.graph.shortestpaths.WeightedShortestPaths;
 import adm2e.graph.traversal.BreadthFirstTraversal;
+import adm2e.graph.traversal.ShardedBreadthFirstTraversal;
+import adm2e.instrumentation.LatencyHistogram;
+import gnu.trove.map.hash.TIntIntHashMap;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
@@ -12,12 +29,14 @@ import org.apache.commons.cli.OptionGroup;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.function.IntPredicate;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.OptionalInt;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -29,6 +48,7 @@ public class Demo {
         + "(\\p{Alnum}+)"
         + "\\s*(<?\\s*[=-]+\\s*>?)\\s*"
         + "(\\p{Alnum}+)"
+        + "(?:\\s+(\\d+(?:\\.\\d+)?))?"
         + "\\s*$"
     );
 
@@ -40,10 +60,109 @@ public class Demo {
         .required(false)
         .build();
 
+    private static final Option BATCH_OPTION = Option.builder()
+        .desc("print shortest paths for every \"FROM TO\" line of QUERY_FILE, in order, answered by a pool of"
+            + " threads, and then latency percentiles")
+        .hasArg(true)
+        .argName("QUERY_FILE")
+        .longOpt("batch-shortest-paths")
+        .required(false)
+        .build();
+
+    private static final Option THREADS_OPTION = Option.builder()
+        .argName("num")
+        .desc("the number of worker threads in batch mode (default: number of processors)")
+        .hasArg(true)
+        .longOpt("threads")
+        .numberOfArgs(1)
+        .required(false)
+        .build();
+
+    private static final Option SHARDS_OPTION = Option.builder()
+        .argName("num")
+        .desc("find the shortest path with a BFS split across this many worker processes; needs a snapshot or"
+            + " off-heap graph as input")
+        .hasArg(true)
+        .longOpt("shards")
+        .numberOfArgs(1)
+        .required(false)
+        .build();
+
+    private static final Option REACHABLE_OPTION = Option.builder()
+        .desc("print whether there is a path from the first node to the second; this builds a whole"
+            + " reachability index for one query, which only pays off with --batch-reachable")
+        .hasArg(true)
+        .longOpt("reachable")
+        .numberOfArgs(2)
+        .required(false)
+        .build();
+
+    private static final Option BATCH_REACHABLE_OPTION = Option.builder()
+        .desc("print whether the first node reaches the second for every \"FROM TO\" line of QUERY_FILE,"
+            + " from one reachability index, and then latency percentiles")
+        .hasArg(true)
+        .argName("QUERY_FILE")
+        .longOpt("batch-reachable")
+        .required(false)
+        .build();
+
+    private static final Option COMPONENTS_OPTION = Option.builder()
+        .desc("print the number and sizes of weakly connected components")
+        .hasArg(false)
+        .longOpt("components")
+        .required(false)
+        .build();
+
+    private static final Option STRONG_COMPONENTS_OPTION = Option.builder()
+        .desc("print the number and sizes of strongly connected components")
+        .hasArg(false)
+        .longOpt("strong-components")
+        .required(false)
+        .build();
+
+    private static final Option SAVE_SNAPSHOT_OPTION = Option.builder()
+        .desc("save the graph as a binary snapshot, which can be given as input instead of an edge list")
+        .hasArg(true)
+        .argName("FILE")
+        .longOpt("save-snapshot")
+        .required(false)
+        .build();
+
+    private static final Option SAVE_OFF_HEAP_OPTION = Option.builder()
+        .desc("stream the edge list into an off-heap graph file, for graphs larger than the heap, which can be given as input")
+        .hasArg(true)
+        .argName("FILE")
+        .longOpt("save-off-heap")
+        .required(false)
+        .build();
+
+    private static final Option LANDMARKS_OPTION = Option.builder()
+        .desc("find shortest paths with A* guided by K landmarks, whose distances are saved next to the input, one file per --reorder order")
+        .hasArg(true)
+        .argName("K")
+        .longOpt("landmarks")
+        .required(false)
+        .build();
+
+    private static final Option REORDER_OPTION = Option.builder()
+        .desc("renumber the vertices for locality after loading, by DEGREE, BFS or RCM order")
+        .hasArg(true)
+        .argName("ORDER")
+        .longOpt("reorder")
+        .required(false)
+        .build();
+
+    private static final Option CSR_OPTION = Option.builder()
+        .desc("load the graph in parallel into a compact, immutable CSR representation")
+        .hasArg(false)
+        .longOpt("csr")
+        .required(false)
+        .build();
+
     private static final CommandLineParser DEFAULT_PARSER = new DefaultParser();
     private static final HelpFormatter HELP_FORMATTER = new HelpFormatter();
 
-    public static void main(String[] args) throws IOException {
+    public static void main(String[] args) throws IOException, InterruptedException {
         // Parse command line.
         CommandLine cli;
         try {
@@ -53,18 +172,75 @@ public class Demo {
             return;
         }
         // Build data representation.
-        Stream<String> lines = readRawInput(cli.getArgs()[0]);
-        DirectedGraph graph = buildGraph(lines);
+        Path inputFile = Path.of(cli.getArgs()[0]);
+        if (cli.hasOption(SAVE_OFF_HEAP_OPTION.getLongOpt())) {
+            saveOffHeap(inputFile, Path.of(cli.getOptionValue(SAVE_OFF_HEAP_OPTION.getLongOpt())));
+            return;
+        }
+        DirectedGraph graph;
+        if (GraphSnapshot.isSnapshot(inputFile)) {
+            graph = GraphSnapshot.open(inputFile);
+        } else if (OffHeapGraphFile.isOffHeapGraph(inputFile)) {
+            graph = OffHeapGraphFile.open(inputFile);
+        } else if (cli.hasOption(CSR_OPTION.getLongOpt())) {
+            graph = EdgeListLoader.load(inputFile);
+        } else {
+            graph = buildGraph(inputFile);
+        }
+        Path indexFile = LandmarkIndex.indexFileFor(inputFile);
+        if (cli.hasOption(REORDER_OPTION.getLongOpt())) {
+            String name = cli.getOptionValue(REORDER_OPTION.getLongOpt()).toUpperCase(Locale.ROOT);
+            VertexReordering.Strategy order = VertexReordering.Strategy.valueOf(name);
+            graph = VertexReordering.reorder(graph, order);
+            indexFile = LandmarkIndex.indexFileFor(inputFile, order);
+        }
         // Run requested solver.
         if (cli.hasOption(PATH_BETWEEN_NODES_OPTION.getLongOpt())) {
             String[] labels = cli.getOptionValues(PATH_BETWEEN_NODES_OPTION.getLongOpt());
-            shortestPath(graph, labels[0], labels[1]);
+            if (cli.hasOption(LANDMARKS_OPTION.getLongOpt())) {
+                int numLandmarks = Integer.parseInt(cli.getOptionValue(LANDMARKS_OPTION.getLongOpt()));
+                EdgeIndexedGraph csr = asEdgeIndexed(graph);
+                shortestPath(csr, labels[0], labels[1], landmarkIndexFor(csr, indexFile, numLandmarks));
+            } else if (cli.hasOption(SHARDS_OPTION.getLongOpt())) {
+                if (cli.hasOption(REORDER_OPTION.getLongOpt()))
+                    throw new RuntimeException("Sharded traversal cannot reorder the graph it is given!");
+                int numShards = Integer.parseInt(cli.getOptionValue(SHARDS_OPTION.getLongOpt()));
+                shardedShortestPath(graph, inputFile, numShards, labels[0], labels[1]);
+            } else {
+                shortestPath(graph, labels[0], labels[1]);
+            }
+        } else if (cli.hasOption(BATCH_OPTION.getLongOpt())) {
+            int numThreads = cli.hasOption(THREADS_OPTION.getLongOpt())
+                ? Integer.parseInt(cli.getOptionValue(THREADS_OPTION.getLongOpt()))
+                : Runtime.getRuntime().availableProcessors();
+            DistanceHeuristic heuristic = null;
+            if (cli.hasOption(LANDMARKS_OPTION.getLongOpt())) {
+                int numLandmarks = Integer.parseInt(cli.getOptionValue(LANDMARKS_OPTION.getLongOpt()));
+                graph = asEdgeIndexed(graph);
+                heuristic = landmarkIndexFor((EdgeIndexedGraph) graph, indexFile, numLandmarks);
+            }
+            ShortestPathBatchRunner runner = new ShortestPathBatchRunner(graph, heuristic, numThreads, System.out);
+            long startNanos = System.nanoTime();
+            runner.run(Path.of(cli.getOptionValue(BATCH_OPTION.getLongOpt())));
+            printLatencies(runner.getLatencies(), System.nanoTime() - startNanos);
+        } else if (cli.hasOption(REACHABLE_OPTION.getLongOpt())) {
+            String[] labels = cli.getOptionValues(REACHABLE_OPTION.getLongOpt());
+            reachable(graph, labels[0], labels[1]);
+        } else if (cli.hasOption(BATCH_REACHABLE_OPTION.getLongOpt())) {
+            batchReachable(graph, Path.of(cli.getOptionValue(BATCH_REACHABLE_OPTION.getLongOpt())));
+        } else if (cli.hasOption(COMPONENTS_OPTION.getLongOpt())) {
+            printComponents(WeaklyConnectedComponents.compute(graph));
+        } else if (cli.hasOption(STRONG_COMPONENTS_OPTION.getLongOpt())) {
+            printComponents(StronglyConnectedComponents.compute(graph));
+        } else if (cli.hasOption(SAVE_SNAPSHOT_OPTION.getLongOpt())) {
+            GraphSnapshot.write(graph, Path.of(cli.getOptionValue(SAVE_SNAPSHOT_OPTION.getLongOpt())));
         }
     }
 
     /**
-     * BFS to find and print the shortest path between two nodes,
-     * if they are valid and a path actually exists.
+     * Bidirectional BFS to find and print the shortest path between two nodes,
+     * if they are valid and a path actually exists. Weighted graphs use Dijkstra
+     * instead, and also print the weight of the path.
      */
     public static void shortestPath(DirectedGraph graph, String label1, String label2) {
         int indexForLabel1 = graph.indexForLabel(label1).orElseThrow(() ->
@@ -72,66 +248,273 @@ public class Demo {
         int indexForLabel2 = graph.indexForLabel(label2).orElseThrow(() ->
             new RuntimeException(label2 + " not present in input data!"));
 
-        int numVertices = graph.numVertices();
-        DirectedGraph.VisitTracker visitTracker =
-            BreadthFirstTraversal.getDefaultVisitTracker(numVertices);
-        // The edge consumer is an array that records the parent of each node as we encounter them.
-        int[] parentOf = new int[numVertices];
-        Arrays.fill(parentOf, -1);
-        DirectedGraph.EdgeConsumer edgeConsumer = (x, y) -> {
-            parentOf[y] = x;
-        };
-        // Stop when we find the destination.
-        IntPredicate stopCondition = i -> i == indexForLabel2;
-        // Solve.
-        BreadthFirstTraversal.traverse(graph, indexForLabel1, visitTracker, edgeConsumer, stopCondition);
+        if (graph instanceof EdgeIndexedGraph && ((EdgeIndexedGraph) graph).isWeighted()) {
+            shortestPath(graph, label1, label2, DistanceHeuristic.NONE);
+            return;
+        }
+
+        int[] path = BreadthFirstTraversal.shortestPath(graph, indexForLabel1, indexForLabel2);
         // Print the solution, if we found one.
-        if (parentOf[indexForLabel2] != -1) {
-            LinkedList<Integer> path = new LinkedList<>();
-            int current = indexForLabel2;
-            while (current != -1) {
-                path.addFirst(current);
-                current = parentOf[current];
-            }
-            String solution = path.stream()
-                .map(i -> graph.labelOfVertex(i).get())
-                .collect(Collectors.joining(" -> "));
-            System.out.println(solution);
+        if (path.length > 0) {
+            System.out.println(pathToString(graph, path));
         } else {
             System.out.println("FAILED TO FIND A PATH!");
         }
     }
 
-    private static Stream<String> readRawInput(String path) throws IOException {
-        Path inputFile = Path.of(path);
+    /**
+     * A* with the given heuristic, which also prints the weight of the path.
+     */
+    public static void shortestPath(DirectedGraph graph, String label1, String label2, DistanceHeuristic heuristic) {
+        int indexForLabel1 = graph.indexForLabel(label1).orElseThrow(() ->
+            new RuntimeException(label1 + " not present in input data!"));
+        int indexForLabel2 = graph.indexForLabel(label2).orElseThrow(() ->
+            new RuntimeException(label2 + " not present in input data!"));
+        WeightedPath path = new WeightedShortestPaths(graph).shortestPath(indexForLabel1, indexForLabel2, heuristic);
+        if (path.exists()) {
+            System.out.println(pathToString(graph, path.getVertices()) + " (weight " + path.getWeight() + ")");
+        } else {
+            System.out.println("FAILED TO FIND A PATH!");
+        }
+    }
+
+    /**
+     * One-sided BFS across worker processes, which only keeps the parents of the
+     * vertices it reaches. The graph is only used for labels; the workers map the
+     * input file themselves.
+     */
+    public static void shardedShortestPath(DirectedGraph graph,
+                                           Path inputFile,
+                                           int numShards,
+                                           String label1,
+                                           String label2) throws IOException {
+        if (!GraphSnapshot.isSnapshot(inputFile) && !OffHeapGraphFile.isOffHeapGraph(inputFile))
+            throw new RuntimeException("Sharded traversal needs a snapshot or an off-heap graph as input!");
+        int indexForLabel1 = graph.indexForLabel(label1).orElseThrow(() ->
+            new RuntimeException(label1 + " not present in input data!"));
+        int indexForLabel2 = graph.indexForLabel(label2).orElseThrow(() ->
+            new RuntimeException(label2 + " not present in input data!"));
+        TIntIntHashMap parents = new TIntIntHashMap();
+        try (ShardedBreadthFirstTraversal traversal = ShardedBreadthFirstTraversal.launch(inputFile, numShards)) {
+            traversal.traverse(
+                indexForLabel1,
+                (parent, child) -> parents.put(child, parent),
+                vertex -> vertex == indexForLabel2);
+        }
+        if (indexForLabel1 != indexForLabel2 && !parents.containsKey(indexForLabel2)) {
+            System.out.println("FAILED TO FIND A PATH!");
+            return;
+        }
+        int length = 1;
+        for (int v = indexForLabel2; v != indexForLabel1; v = parents.get(v)) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int v = indexForLabel2, i = length - 1; i >= 0; v = parents.get(v), i--) {
+            path[i] = v;
+        }
+        System.out.println(pathToString(graph, path));
+    }
+
+    private static EdgeIndexedGraph asEdgeIndexed(DirectedGraph graph) {
+        return graph instanceof EdgeIndexedGraph ? (EdgeIndexedGraph) graph : CsrGraph.copyOf(graph, false);
+    }
+
+    // Reuses the index saved by an earlier run if it was built for this very graph, and
+    // builds and saves one otherwise, including when the saved one is from an older
+    // version of the format or damaged.
+    private static LandmarkIndex landmarkIndexFor(EdgeIndexedGraph graph,
+                                                  Path indexFile,
+                                                  int numLandmarks) throws IOException {
+        if (Files.exists(indexFile)) {
+            try {
+                LandmarkIndex saved = LandmarkIndex.read(indexFile);
+                if (saved.numLandmarks() == Math.min(numLandmarks, graph.numVertices()) && saved.matches(graph))
+                    return saved;
+            } catch (IOException e) {
+                // Fall through and overwrite it.
+            }
+        }
+        LandmarkIndex index = LandmarkIndex.build(graph, numLandmarks, LandmarkIndex.Selection.FARTHEST);
+        index.write(indexFile);
+        return index;
+    }
+
+    /**
+     * Prints whether the first node can reach the second, using a reachability index.
+     */
+    public static void reachable(DirectedGraph graph, String label1, String label2) {
+        int indexForLabel1 = graph.indexForLabel(label1).orElseThrow(() ->
+            new RuntimeException(label1 + " not present in input data!"));
+        int indexForLabel2 = graph.indexForLabel(label2).orElseThrow(() ->
+            new RuntimeException(label2 + " not present in input data!"));
+        boolean reachable = ReachabilityIndex.build(graph).canReach(indexForLabel1, indexForLabel2);
+        System.out.println(label1 + (reachable ? " can reach " : " cannot reach ") + label2);
+    }
+
+    /**
+     * Answers a file of reachability queries in the format of the shortest-path batch,
+     * from one index built up front. Building it costs a few searches of the whole
+     * graph, which many queries at a few microseconds each more than make up for.
+     */
+    public static void batchReachable(DirectedGraph graph, Path queryFile) throws IOException {
+        long startNanos = System.nanoTime();
+        ReachabilityIndex index = ReachabilityIndex.build(graph);
+        System.err.printf("Built reachability index in %.1f ms%n", (System.nanoTime() - startNanos) / 1e6);
+        LatencyHistogram latencies = new LatencyHistogram();
+        startNanos = System.nanoTime();
+        try (BufferedReader reader = Files.newBufferedReader(queryFile)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String query = line.trim();
+                if (query.isEmpty() || query.startsWith("#")) continue;
+                long queryStartNanos = System.nanoTime();
+                String result;
+                String[] labels = query.split("\\s+");
+                if (labels.length != 2) {
+                    result = "ERROR: " + query + " does not match pattern \"LABEL LABEL\"!";
+                } else {
+                    OptionalInt from = graph.indexForLabel(labels[0]);
+                    OptionalInt to = graph.indexForLabel(labels[1]);
+                    if (from.isEmpty() || to.isEmpty()) {
+                        result = "ERROR: " + (from.isEmpty() ? labels[0] : labels[1]) + " not present in input data!";
+                    } else {
+                        result = index.canReach(from.getAsInt(), to.getAsInt()) ? "can reach" : "cannot reach";
+                    }
+                }
+                latencies.record(System.nanoTime() - queryStartNanos);
+                System.out.println(query + ": " + result);
+            }
+        }
+        printLatencies(latencies, System.nanoTime() - startNanos);
+    }
+
+    // To stderr, so that the answers on stdout can be piped on as they are.
+    private static void printLatencies(LatencyHistogram latencies, long elapsedNanos) {
+        System.err.printf("%d queries in %.1f ms; latency p50 <= %d us, p90 <= %d us, p99 <= %d us, p99.9 <= %d us%n",
+            latencies.count(),
+            elapsedNanos / 1e6,
+            latencies.percentile(50) / 1000,
+            latencies.percentile(90) / 1000,
+            latencies.percentile(99) / 1000,
+            latencies.percentile(99.9) / 1000);
+    }
+
+    static String pathToString(DirectedGraph graph, int[] path) {
+        return Arrays.stream(path)
+            .mapToObj(i -> graph.labelOfVertex(i).get())
+            .collect(Collectors.joining(" -> "));
+    }
+
+    /**
+     * Prints how many components there are, and the sizes of the largest ones.
+     */
+    public static void printComponents(ConnectedComponents components) {
+        String largest = Arrays.stream(components.getComponentSizes())
+            .boxed()
+            .sorted(Comparator.reverseOrder())
+            .limit(10)
+            .map(String::valueOf)
+            .collect(Collectors.joining(", "));
+        System.out.println(components.numComponents() + " components; largest: " + largest);
+    }
+
+    // Skips lines that are empty or only whitespace, as EdgeListLoader does.
+    private static Stream<String> readRawInput(Path inputFile) throws IOException {
         return Files.newBufferedReader(inputFile)
             .lines()
-            .filter(s -> !s.isEmpty());
+            .filter(s -> !s.isBlank());
+    }
+
+    private static DirectedGraph buildGraph(Path path) throws IOException {
+        GraphSink sink = new GraphSink();
+        try (Stream<String> lines = readRawInput(path)) {
+            parseEdges(lines, sink);
+        }
+        return sink.build();
     }
 
-    private static DirectedGraph buildGraph(Stream<String> lines) {
-        DirectedGraph graph = new AdjacencyListGraph();
+    // Never holds the edges on the heap, so this works for edge lists that no other
+    // representation can load.
+    private static void saveOffHeap(Path inputFile, Path outputFile) throws IOException {
+        try (OffHeapGraphFile.Builder builder = new OffHeapGraphFile.Builder(outputFile);
+             Stream<String> lines = readRawInput(inputFile)) {
+            parseEdges(lines, (from, to, directed, weight) -> {
+                if (!Double.isNaN(weight)) throw new RuntimeException("Off-heap graphs do not support weights!");
+                builder.addEdge(from, to, directed);
+            });
+            builder.build();
+        }
+    }
+
+    private static void parseEdges(Stream<String> lines, EdgeSink sink) {
         lines.forEach(line -> {
             Matcher m  = INPUT_LINE_PATTERN.matcher(line);
             if (!m.matches())
                 throw new RuntimeException(
-                    line + " does not match pattern \"LABEL <-> | -- | <- | -> LABEL\"!");
+                    line + " does not match pattern \"LABEL <-> | -- | <- | -> LABEL [WEIGHT]\"!");
             String label1 = m.group(1);
             String operator = m.group(2);
             String label2 = m.group(3);
+            double weight = m.group(4) == null ? Double.NaN : Double.parseDouble(m.group(4));
             int lt = operator.indexOf('<');
             int gt = operator.indexOf('>');
             if (lt == -1) {
-                graph.addEdge(label1, label2, true);
+                sink.addEdge(label1, label2, true, weight);
             }
             if (gt == -1) {
-                graph.addEdge(label2, label1, true);
+                sink.addEdge(label2, label1, true, weight);
             }
             if (lt > -1 && gt > -1) {
-                graph.addEdge(label1, label2, false);
+                sink.addEdge(label1, label2, false, weight);
             }
         });
-        return graph;
+    }
+
+    // Anything that takes labeled edges the way DirectedGraph.addEdge does, plus
+    // a weight, which is NaN for edges that were given without one.
+    @FunctionalInterface
+    private interface EdgeSink {
+        void addEdge(String from, String to, boolean directed, double weight);
+    }
+
+    // Only the CSR representation can hold weights, so this collects edges in an
+    // adjacency list until the first weighted one arrives, then moves them into a CSR
+    // builder and sends the rest there. The vertices keep their numbers.
+    private static final class GraphSink implements EdgeSink {
+        private AdjacencyListGraph unweighted = new AdjacencyListGraph();
+        private CsrGraph.Builder weighted;
+
+        @Override
+        public void addEdge(String from, String to, boolean directed, double weight) {
+            if (weighted == null && !Double.isNaN(weight)) switchToCsr();
+            if (weighted == null) {
+                unweighted.addEdge(from, to, directed);
+            } else if (Double.isNaN(weight)) {
+                weighted.addEdge(from, to, directed);
+            } else {
+                weighted.addEdge(from, to, directed, weight);
+            }
+        }
+
+        private void switchToCsr() {
+            weighted = new CsrGraph.Builder();
+            int numVertices = unweighted.numVertices();
+            String[] labels = new String[numVertices];
+            for (int vertex = 0; vertex < numVertices; vertex++) {
+                labels[vertex] = unweighted.labelOfVertex(vertex).orElseThrow();
+                weighted.addVertex(labels[vertex]);
+            }
+            for (int vertex = 0; vertex < numVertices; vertex++) {
+                String from = labels[vertex];
+                unweighted.forEachChild(vertex, child -> weighted.addEdge(from, labels[child], true));
+            }
+            unweighted = null;
+        }
+
+        DirectedGraph build() {
+            return weighted == null ? unweighted : weighted.build(true);
+        }
     }
 
     private static Options getOptions() {
@@ -139,7 +522,19 @@ public class Demo {
         OptionGroup optionGroup = new OptionGroup();
         optionGroup.setRequired(true);
         optionGroup.addOption(PATH_BETWEEN_NODES_OPTION);
+        optionGroup.addOption(BATCH_OPTION);
+        optionGroup.addOption(REACHABLE_OPTION);
+        optionGroup.addOption(BATCH_REACHABLE_OPTION);
+        optionGroup.addOption(COMPONENTS_OPTION);
+        optionGroup.addOption(STRONG_COMPONENTS_OPTION);
+        optionGroup.addOption(SAVE_SNAPSHOT_OPTION);
+        optionGroup.addOption(SAVE_OFF_HEAP_OPTION);
         options.addOptionGroup(optionGroup);
+        options.addOption(CSR_OPTION);
+        options.addOption(REORDER_OPTION);
+        options.addOption(LANDMARKS_OPTION);
+        options.addOption(THREADS_OPTION);
+        options.addOption(SHARDS_OPTION);
         return options;
     }
 
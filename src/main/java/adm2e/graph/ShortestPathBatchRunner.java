@@ -0,0 +1,126 @@
+package adm2e.graph;
+
+import adm2e.graph.representations.DirectedGraph;
+import adm2e.graph.representations.EdgeIndexedGraph;
+import adm2e.graph.shortestpaths.DistanceHeuristic;
+import adm2e.graph.shortestpaths.WeightedPath;
+import adm2e.graph.shortestpaths.WeightedShortestPaths;
+import adm2e.graph.traversal.BreadthFirstTraversal;
+import adm2e.instrumentation.LatencyHistogram;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <p>Answers a file of shortest-path queries in one JVM, one "FROM TO" pair of labels
+ * per line, with blank lines and lines starting with # skipped. All workers share the
+ * one loaded graph; the searches keep their scratch space per thread, so nothing is
+ * allocated in proportion to the graph once every worker has warmed up.</p>
+ * <p>Results are printed in the order of the queries, as soon as every query before
+ * them is answered. Only a bounded window of queries is in flight at a time, so the
+ * query file can be much larger than memory.</p>
+ */
+public final class ShortestPathBatchRunner {
+    // Enough queued work that no worker idles while the oldest query is slow.
+    private static final int QUERIES_IN_FLIGHT_PER_THREAD = 256;
+
+    private final DirectedGraph graph;
+    // For bidirectional BFS, or null if the searches are weighted.
+    private final DirectedGraph transpose;
+    private final WeightedShortestPaths weighted;
+    private final DistanceHeuristic heuristic;
+    private final int numThreads;
+    private final PrintStream out;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /**
+     * Weighted graphs are searched with A* and the given heuristic. Unweighted graphs
+     * are searched with bidirectional BFS, unless a heuristic is given.
+     */
+    public ShortestPathBatchRunner(DirectedGraph graph, DistanceHeuristic heuristic, int numThreads, PrintStream out) {
+        boolean isWeighted = graph instanceof EdgeIndexedGraph && ((EdgeIndexedGraph) graph).isWeighted();
+        this.graph = graph;
+        if (isWeighted || heuristic != null) {
+            this.transpose = null;
+            this.weighted = new WeightedShortestPaths(graph);
+            this.heuristic = heuristic != null ? heuristic : DistanceHeuristic.NONE;
+        } else {
+            this.transpose = graph.transpose();
+            this.weighted = null;
+            this.heuristic = null;
+        }
+        this.numThreads = numThreads;
+        this.out = out;
+    }
+
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    public void run(Path queryFile) throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+        ArrayDeque<Future<String>> inFlight = new ArrayDeque<>();
+        int window = numThreads * QUERIES_IN_FLIGHT_PER_THREAD;
+        try (BufferedReader reader = Files.newBufferedReader(queryFile)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String query = line.trim();
+                if (query.isEmpty() || query.startsWith("#")) continue;
+                if (inFlight.size() == window) out.println(resultOf(inFlight.poll()));
+                inFlight.add(pool.submit(() -> answer(query)));
+            }
+            while (!inFlight.isEmpty()) {
+                out.println(resultOf(inFlight.poll()));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static String resultOf(Future<String> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            // answer() reports its own failures, so this is a bug.
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private String answer(String query) {
+        long startNanos = System.nanoTime();
+        String result;
+        try {
+            String[] labels = query.split("\\s+");
+            if (labels.length != 2)
+                throw new RuntimeException(query + " does not match pattern \"LABEL LABEL\"!");
+            int source = indexOf(labels[0]);
+            int target = indexOf(labels[1]);
+            if (weighted != null) {
+                WeightedPath path = weighted.shortestPath(source, target, heuristic);
+                result = path.exists()
+                    ? Demo.pathToString(graph, path.getVertices()) + " (weight " + path.getWeight() + ")"
+                    : "FAILED TO FIND A PATH!";
+            } else {
+                int[] path = BreadthFirstTraversal.shortestPath(graph, transpose, source, target);
+                result = path.length > 0 ? Demo.pathToString(graph, path) : "FAILED TO FIND A PATH!";
+            }
+        } catch (RuntimeException e) {
+            result = "ERROR: " + e.getMessage();
+        }
+        latencies.record(System.nanoTime() - startNanos);
+        return query + ": " + result;
+    }
+
+    private int indexOf(String label) {
+        return graph.indexForLabel(label).orElseThrow(() ->
+            new RuntimeException(label + " not present in input data!"));
+    }
+}
@@ -0,0 +1,68 @@
+package adm2e.graph.components;
+
+import java.util.Arrays;
+
+/**
+ * A partition of the vertices of a graph into components with dense ids, from zero
+ * up to the number of components. Components are numbered in order of their lowest
+ * vertex, so the result does not depend on how the work was scheduled.
+ */
+public final class ConnectedComponents {
+    private final int[] componentOf;
+    private final int[] sizes;
+
+    ConnectedComponents(int[] componentOf, int[] sizes) {
+        this.componentOf = componentOf;
+        this.sizes = sizes;
+    }
+
+    /**
+     * Turns an array that maps every vertex to some representative vertex of its
+     * component into dense component ids, in place, and counts the members of each.
+     */
+    static ConnectedComponents fromRepresentatives(int[] representativeOf) {
+        int numVertices = representativeOf.length;
+        int[] idOfRepresentative = new int[numVertices];
+        Arrays.fill(idOfRepresentative, -1);
+        int numComponents = 0;
+        for (int v = 0; v < numVertices; v++) {
+            int representative = representativeOf[v];
+            if (idOfRepresentative[representative] == -1) {
+                idOfRepresentative[representative] = numComponents++;
+            }
+        }
+        int[] sizes = new int[numComponents];
+        for (int v = 0; v < numVertices; v++) {
+            int id = idOfRepresentative[representativeOf[v]];
+            representativeOf[v] = id;
+            sizes[id]++;
+        }
+        return new ConnectedComponents(representativeOf, sizes);
+    }
+
+    public int numComponents() {
+        return sizes.length;
+    }
+
+    public int componentOf(int vertex) {
+        return componentOf[vertex];
+    }
+
+    public int sizeOf(int component) {
+        return sizes[component];
+    }
+
+    /**
+     * The component id of every vertex, by vertex index.
+     */
+    public int[] getComponentIds() {
+        return Arrays.copyOf(componentOf, componentOf.length);
+    }
+
+    /**
+     * The number of vertices in every component, by component id.
+     */
+    public int[] getComponentSizes() {
+        return Arrays.copyOf(sizes, sizes.length);
+    }
+}
@@ -0,0 +1,180 @@
+package adm2e.graph.components;
+
+import adm2e.graph.representations.CsrGraph;
+import adm2e.graph.representations.DirectedGraph;
+import adm2e.graph.traversal.TraversalScratch;
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.Random;
+
+/**
+ * <p>Answers whether one vertex can reach another without a full search each time,
+ * after GRAIL (Yildirim, Chaoji and Zaki). Vertices in the same strongly connected
+ * component reach each other, so the questions are really about the condensation,
+ * which is a DAG. Each of a few randomized depth-first traversals of the DAG numbers
+ * the components in post-order, and labels each one with the interval from the lowest
+ * number below it to its own. If u reaches v, the interval of v lies within the
+ * interval of u in every traversal, so one traversal where it does not is proof that
+ * u cannot reach v.</p>
+ * <p>Most pairs that cannot reach each other are told apart that way, in time
+ * proportional to the number of traversals. The remaining queries fall back to a
+ * depth-first search of the DAG that skips every component whose intervals do not
+ * contain the target's, which keeps it close to the actual paths.</p>
+ * <p>The index is immutable, and can be queried from several threads at once.</p>
+ */
+public final class ReachabilityIndex {
+    private static final int DEFAULT_TRAVERSALS = 5;
+
+    private final ConnectedComponents components;
+    private final CsrGraph dag;
+    private final int numTraversals;
+    // Interval of component c in traversal i at [c * numTraversals + i].
+    private final int[] low;
+    private final int[] high;
+
+    private ReachabilityIndex(ConnectedComponents components, CsrGraph dag, int numTraversals) {
+        this.components = components;
+        this.dag = dag;
+        this.numTraversals = numTraversals;
+        this.low = new int[dag.numVertices() * numTraversals];
+        this.high = new int[dag.numVertices() * numTraversals];
+    }
+
+    public static ReachabilityIndex build(DirectedGraph graph) {
+        return build(graph, DEFAULT_TRAVERSALS, new Random());
+    }
+
+    /**
+     * More traversals rule out more pairs up front, at the cost of two ints per
+     * component each, and of checking them all on every query.
+     */
+    public static ReachabilityIndex build(DirectedGraph graph, int numTraversals, Random random) {
+        if (numTraversals < 1) throw new IllegalArgumentException("Need at least one traversal!");
+        ConnectedComponents components = StronglyConnectedComponents.compute(graph);
+        CsrGraph dag = StronglyConnectedComponents.condensation(graph, components);
+        ReachabilityIndex index = new ReachabilityIndex(components, dag, numTraversals);
+        int[] roots = roots(dag);
+        for (int i = 0; i < numTraversals; i++) {
+            index.label(i, roots, random);
+        }
+        return index;
+    }
+
+    // Components that no other component leads to. Every component lies below one.
+    private static int[] roots(CsrGraph dag) {
+        boolean[] hasParent = new boolean[dag.numVertices()];
+        for (int e = 0; e < dag.numEdges(); e++) {
+            hasParent[dag.edgeTarget(e)] = true;
+        }
+        TIntArrayList roots = new TIntArrayList();
+        for (int c = 0; c < hasParent.length; c++) {
+            if (!hasParent[c]) roots.add(c);
+        }
+        return roots.toArray();
+    }
+
+    // One post-order traversal, with the roots shuffled and the children of each
+    // component visited from a random starting point. The recursion is an explicit
+    // stack of components and how many of their children have been looked at.
+    private void label(int traversal, int[] roots, Random random) {
+        int numComponents = dag.numVertices();
+        boolean[] done = new boolean[numComponents];
+        int[] stackComponent = new int[numComponents];
+        int[] stackFirst = new int[numComponents];
+        int[] stackSeen = new int[numComponents];
+        shuffle(roots, random);
+        int rank = 0;
+        for (int root : roots) {
+            int depth = 0;
+            stackComponent[0] = root;
+            stackFirst[0] = randomChild(root, random);
+            stackSeen[0] = 0;
+            low[root * numTraversals + traversal] = Integer.MAX_VALUE;
+            while (depth >= 0) {
+                int c = stackComponent[depth];
+                int begin = dag.edgeOffset(c);
+                int degree = dag.edgeOffset(c + 1) - begin;
+                if (stackSeen[depth] < degree) {
+                    int child = dag.edgeTarget(begin + (stackFirst[depth] + stackSeen[depth]++) % degree);
+                    int slot = child * numTraversals + traversal;
+                    if (done[child]) {
+                        lowerLow(c, traversal, low[slot]);
+                    } else {
+                        // A DAG has no back edges, so a child cannot be on the stack.
+                        depth++;
+                        stackComponent[depth] = child;
+                        stackFirst[depth] = randomChild(child, random);
+                        stackSeen[depth] = 0;
+                        low[slot] = Integer.MAX_VALUE;
+                    }
+                } else {
+                    int slot = c * numTraversals + traversal;
+                    high[slot] = rank;
+                    low[slot] = Math.min(low[slot], rank);
+                    rank++;
+                    done[c] = true;
+                    depth--;
+                    if (depth >= 0) lowerLow(stackComponent[depth], traversal, low[slot]);
+                }
+            }
+        }
+    }
+
+    private void lowerLow(int component, int traversal, int value) {
+        int slot = component * numTraversals + traversal;
+        low[slot] = Math.min(low[slot], value);
+    }
+
+    private int randomChild(int component, Random random) {
+        int degree = dag.edgeOffset(component + 1) - dag.edgeOffset(component);
+        return degree == 0 ? 0 : random.nextInt(degree);
+    }
+
+    private static void shuffle(int[] array, Random random) {
+        for (int i = array.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = array[i];
+            array[i] = array[j];
+            array[j] = swap;
+        }
+    }
+
+    public ConnectedComponents getComponents() {
+        return components;
+    }
+
+    /**
+     * True if there is a path from one vertex to the other. Every vertex reaches itself.
+     */
+    public boolean canReach(int from, int to) {
+        int source = components.componentOf(from);
+        int target = components.componentOf(to);
+        if (source == target) return true;
+        if (!contains(source, target)) return false;
+        try (TraversalScratch scratch = TraversalScratch.acquire(dag.numVertices())) {
+            TIntArrayList stack = new TIntArrayList();
+            scratch.markVisited(source);
+            stack.add(source);
+            while (!stack.isEmpty()) {
+                int c = stack.removeAt(stack.size() - 1);
+                for (int e = dag.edgeOffset(c), end = dag.edgeOffset(c + 1); e < end; e++) {
+                    int child = dag.edgeTarget(e);
+                    if (child == target) return true;
+                    if (contains(child, target) && scratch.visit(child)) stack.add(child);
+                }
+            }
+            return false;
+        }
+    }
+
+    // False only if the intervals prove that the outer component cannot reach the
+    // inner one; true means it might.
+    private boolean contains(int outer, int inner) {
+        int o = outer * numTraversals;
+        int i = inner * numTraversals;
+        for (int t = 0; t < numTraversals; t++) {
+            if (low[i + t] < low[o + t] || high[i + t] > high[o + t]) return false;
+        }
+        return true;
+    }
+}
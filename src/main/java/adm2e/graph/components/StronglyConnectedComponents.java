@@ -0,0 +1,338 @@
+package adm2e.graph.components;
+
+import adm2e.graph.representations.CsrGraph;
+import adm2e.graph.representations.DirectedGraph;
+import adm2e.graph.traversal.IntQueue;
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Strongly connected components of a directed graph, and the DAG of components
+ * they condense into. Both algorithms work on a {@link CsrGraph}, and copy any other
+ * graph into one first.</p>
+ * <p>{@link #compute(DirectedGraph)} is Tarjan's algorithm, with the recursion turned
+ * into an explicit stack of vertices and edge positions, so that long chains cannot
+ * overflow the thread's stack. {@link #computeParallel(DirectedGraph, ForkJoinPool)}
+ * first trims vertices that have no in-edges or no out-edges left, each of which is a
+ * component of its own, and then splits the rest with forward-backward search: the
+ * vertices that both reach a pivot and are reached from it form its component, and the
+ * three remaining parts cannot share a component, so they are searched in parallel.</p>
+ */
+public final class StronglyConnectedComponents {
+    // Parts smaller than this are finished off with Tarjan instead of split further.
+    private static final int SEQUENTIAL_THRESHOLD = 4096;
+    private static final int TRIMMED = -1;
+
+    private StronglyConnectedComponents() { /* static */ }
+
+    public static ConnectedComponents compute(DirectedGraph graph) {
+        CsrGraph csr = asCsr(graph);
+        Tarjan tarjan = new Tarjan(csr);
+        tarjan.run(null, csr.numVertices(), null, 0);
+        return ConnectedComponents.fromRepresentatives(tarjan.representativeOf);
+    }
+
+    public static ConnectedComponents computeParallel(DirectedGraph graph) {
+        return computeParallel(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the same components as {@link #compute(DirectedGraph)}, on the given
+     * pool. Only worth it for graphs with a lot of vertices left after trimming.
+     */
+    public static ConnectedComponents computeParallel(DirectedGraph graph, ForkJoinPool pool) {
+        CsrGraph csr = asCsr(graph);
+        CsrGraph transpose = csr.transpose();
+        int numVertices = csr.numVertices();
+        Tarjan tarjan = new Tarjan(csr);
+        // Colors mark which part a vertex belongs to; every part gets a new one.
+        int[] color = new int[numVertices];
+        trim(csr, transpose, color, tarjan.representativeOf);
+        TIntArrayList remaining = new TIntArrayList();
+        for (int v = 0; v < numVertices; v++) {
+            if (color[v] != TRIMMED) remaining.add(v);
+        }
+        if (!remaining.isEmpty()) {
+            pool.invoke(new SplitPart(csr, transpose, tarjan, color, new AtomicInteger(1), remaining.toArray(), 0));
+        }
+        return ConnectedComponents.fromRepresentatives(tarjan.representativeOf);
+    }
+
+    /**
+     * The DAG whose vertices are the components, with an edge between two of them
+     * whenever some edge of the graph leads from one to the other. Component c is
+     * vertex c, labeled like the lowest vertex in it.
+     */
+    public static CsrGraph condensation(DirectedGraph graph, ConnectedComponents components) {
+        int numVertices = graph.numVertices();
+        String[] labels = new String[components.numComponents()];
+        TIntArrayList from = new TIntArrayList();
+        TIntArrayList to = new TIntArrayList();
+        for (int v = 0; v < numVertices; v++) {
+            int component = components.componentOf(v);
+            if (labels[component] == null) {
+                labels[component] = graph.labelOfVertex(v).orElseThrow(() ->
+                    new IllegalArgumentException("Graph has vertices without labels!"));
+            }
+            graph.forEachChild(v, child -> {
+                int childComponent = components.componentOf(child);
+                if (childComponent != component) {
+                    from.add(component);
+                    to.add(childComponent);
+                }
+            });
+        }
+        return CsrGraph.fromEdges(labels, from.toArray(), to.toArray(), true);
+    }
+
+    private static CsrGraph asCsr(DirectedGraph graph) {
+        return graph instanceof CsrGraph ? (CsrGraph) graph : CsrGraph.copyOf(graph, false);
+    }
+
+    // Repeatedly removes vertices without in-edges or without out-edges from the
+    // remaining graph. None of them can be on a cycle, so each is its own component.
+    private static void trim(CsrGraph graph, CsrGraph transpose, int[] color, int[] representativeOf) {
+        int numVertices = graph.numVertices();
+        int[] inDegree = new int[numVertices];
+        int[] outDegree = new int[numVertices];
+        IntQueue toTrim = new IntQueue();
+        for (int v = 0; v < numVertices; v++) {
+            inDegree[v] = transpose.outDegree(v);
+            outDegree[v] = graph.outDegree(v);
+            if (inDegree[v] == 0 || outDegree[v] == 0) {
+                color[v] = TRIMMED;
+                toTrim.add(v);
+            }
+        }
+        while (!toTrim.isEmpty()) {
+            int v = toTrim.remove();
+            representativeOf[v] = v;
+            for (int e = graph.edgeOffset(v); e < graph.edgeOffset(v + 1); e++) {
+                int child = graph.edgeTarget(e);
+                if (color[child] != TRIMMED && --inDegree[child] == 0) {
+                    color[child] = TRIMMED;
+                    toTrim.add(child);
+                }
+            }
+            for (int e = transpose.edgeOffset(v); e < transpose.edgeOffset(v + 1); e++) {
+                int parent = transpose.edgeTarget(e);
+                if (color[parent] != TRIMMED && --outDegree[parent] == 0) {
+                    color[parent] = TRIMMED;
+                    toTrim.add(parent);
+                }
+            }
+        }
+    }
+
+    // One forward-backward split of the vertices of one color. Parts own their
+    // vertices, so concurrent parts never write to the same array elements.
+    private static final class SplitPart extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final CsrGraph graph;
+        private final CsrGraph transpose;
+        private final Tarjan tarjan;
+        private final int[] color;
+        private final AtomicInteger nextColor;
+        private final int[] members;
+        private final int partColor;
+
+        SplitPart(CsrGraph graph,
+                  CsrGraph transpose,
+                  Tarjan tarjan,
+                  int[] color,
+                  AtomicInteger nextColor,
+                  int[] members,
+                  int partColor) {
+            this.graph = graph;
+            this.transpose = transpose;
+            this.tarjan = tarjan;
+            this.color = color;
+            this.nextColor = nextColor;
+            this.members = members;
+            this.partColor = partColor;
+        }
+
+        @Override
+        protected void compute() {
+            // The largest part is split further in this loop rather than in a subtask.
+            // On sparse graphs most splits only peel off the pivot's small component,
+            // and recursing on the rest each time would nest as deep as there are
+            // components. The other parts are forked; neither can hold more than half
+            // of the vertices, so those subtasks nest only logarithmically deep.
+            List<SplitPart> forked = new ArrayList<>();
+            int[] current = members;
+            int currentColor = partColor;
+            int[] queue = new int[members.length];
+            while (current.length >= SEQUENTIAL_THRESHOLD) {
+                TIntArrayList[] parts = new TIntArrayList[3];
+                int[] partColors = new int[3];
+                split(current, currentColor, queue, parts, partColors);
+                int largest = 0;
+                for (int i = 1; i < parts.length; i++) {
+                    if (parts[i].size() > parts[largest].size()) largest = i;
+                }
+                for (int i = 0; i < parts.length; i++) {
+                    if (i == largest || parts[i].isEmpty()) continue;
+                    SplitPart task = part(parts[i], partColors[i]);
+                    task.fork();
+                    forked.add(task);
+                }
+                boolean progress = parts[largest].size() <= current.length - current.length / 8;
+                current = parts[largest].toArray();
+                currentColor = partColors[largest];
+                // More splits that each remove only a sliver would cost a search of the
+                // whole part apiece, so Tarjan finishes it in linear time instead.
+                if (!progress) break;
+            }
+            tarjan.run(current, current.length, color, currentColor);
+            for (SplitPart task : forked) {
+                task.join();
+            }
+        }
+
+        // Splits the vertices of the given color around a pivot: its component is
+        // assigned right away, and the vertices only it reaches, only reaching it, and
+        // neither go into the three parts, under the colors they were given.
+        private void split(int[] part, int splitColor, int[] queue, TIntArrayList[] parts, int[] partColors) {
+            int pivot = part[part.length / 2];
+            int forwardColor = nextColor.getAndIncrement();
+            int backwardColor = nextColor.getAndIncrement();
+            int componentColor = nextColor.getAndIncrement();
+            // Forward: everything in this part the pivot reaches.
+            color[pivot] = forwardColor;
+            queue[0] = pivot;
+            for (int head = 0, tail = 1; head < tail; head++) {
+                int v = queue[head];
+                for (int e = graph.edgeOffset(v); e < graph.edgeOffset(v + 1); e++) {
+                    int child = graph.edgeTarget(e);
+                    if (color[child] == splitColor) {
+                        color[child] = forwardColor;
+                        queue[tail++] = child;
+                    }
+                }
+            }
+            // Backward: everything in this part that reaches the pivot. Whatever was
+            // also reached forward is in the pivot's component.
+            color[pivot] = componentColor;
+            queue[0] = pivot;
+            for (int head = 0, tail = 1; head < tail; head++) {
+                int v = queue[head];
+                for (int e = transpose.edgeOffset(v); e < transpose.edgeOffset(v + 1); e++) {
+                    int parent = transpose.edgeTarget(e);
+                    if (color[parent] == forwardColor) {
+                        color[parent] = componentColor;
+                        queue[tail++] = parent;
+                    } else if (color[parent] == splitColor) {
+                        color[parent] = backwardColor;
+                        queue[tail++] = parent;
+                    }
+                }
+            }
+            TIntArrayList forwardOnly = new TIntArrayList();
+            TIntArrayList backwardOnly = new TIntArrayList();
+            TIntArrayList neither = new TIntArrayList();
+            for (int v : part) {
+                int c = color[v];
+                if (c == componentColor) tarjan.representativeOf[v] = pivot;
+                else if (c == forwardColor) forwardOnly.add(v);
+                else if (c == backwardColor) backwardOnly.add(v);
+                else neither.add(v);
+            }
+            parts[0] = forwardOnly;
+            parts[1] = backwardOnly;
+            parts[2] = neither;
+            partColors[0] = forwardColor;
+            partColors[1] = backwardColor;
+            partColors[2] = splitColor;
+        }
+
+        private SplitPart part(TIntArrayList partMembers, int newColor) {
+            return new SplitPart(graph, transpose, tarjan, color, nextColor, partMembers.toArray(), newColor);
+        }
+    }
+
+    // Iterative Tarjan. The per-vertex arrays are shared by concurrent runs over
+    // disjoint sets of vertices; the stacks belong to each run.
+    private static final class Tarjan {
+        private static final int UNVISITED = -1;
+
+        private final CsrGraph graph;
+        private final int[] index;
+        private final int[] lowLink;
+        private final boolean[] onStack;
+        private final int[] representativeOf;
+
+        Tarjan(CsrGraph graph) {
+            int numVertices = graph.numVertices();
+            this.graph = graph;
+            this.index = new int[numVertices];
+            this.lowLink = new int[numVertices];
+            this.onStack = new boolean[numVertices];
+            this.representativeOf = new int[numVertices];
+            Arrays.fill(index, UNVISITED);
+        }
+
+        // Finds the components among the given vertices, or among all of them if
+        // roots is null. With a color array, only vertices of the given color count.
+        void run(int[] roots, int numRoots, int[] color, int scopeColor) {
+            int[] componentStack = new int[numRoots];
+            int componentTop = 0;
+            int[] callStack = new int[numRoots];
+            int[] nextEdge = new int[numRoots];
+            int callTop = 0;
+            int counter = 0;
+            for (int r = 0; r < numRoots; r++) {
+                int root = roots == null ? r : roots[r];
+                if (index[root] != UNVISITED) continue;
+                index[root] = lowLink[root] = counter++;
+                componentStack[componentTop++] = root;
+                onStack[root] = true;
+                callStack[callTop] = root;
+                nextEdge[callTop] = graph.edgeOffset(root);
+                callTop++;
+                while (callTop > 0) {
+                    int v = callStack[callTop - 1];
+                    int e = nextEdge[callTop - 1];
+                    if (e < graph.edgeOffset(v + 1)) {
+                        nextEdge[callTop - 1] = e + 1;
+                        int w = graph.edgeTarget(e);
+                        if (color != null && color[w] != scopeColor) continue;
+                        if (index[w] == UNVISITED) {
+                            // Descend into w.
+                            index[w] = lowLink[w] = counter++;
+                            componentStack[componentTop++] = w;
+                            onStack[w] = true;
+                            callStack[callTop] = w;
+                            nextEdge[callTop] = graph.edgeOffset(w);
+                            callTop++;
+                        } else if (onStack[w]) {
+                            lowLink[v] = Math.min(lowLink[v], index[w]);
+                        }
+                        continue;
+                    }
+                    // Return from v.
+                    callTop--;
+                    if (callTop > 0) {
+                        int caller = callStack[callTop - 1];
+                        lowLink[caller] = Math.min(lowLink[caller], lowLink[v]);
+                    }
+                    if (lowLink[v] == index[v]) {
+                        int member;
+                        do {
+                            member = componentStack[--componentTop];
+                            onStack[member] = false;
+                            representativeOf[member] = v;
+                        } while (member != v);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package adm2e.graph.components;
+
+import adm2e.graph.representations.DirectedGraph;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+
+/**
+ * <p>Weakly connected components, the ones you get by ignoring edge directions, with
+ * a lock-free union-find. Slices of the vertex range are processed in parallel, and
+ * every edge out of a slice merges the sets of its two ends. Roots are linked with a
+ * compare-and-set, always from the larger index to the smaller, so no cycles can
+ * form; finds halve their path as they go, so trees stay shallow.</p>
+ * <p>Afforest's trick of skipping the edges of the largest component after sampling
+ * a few neighbours per vertex does not apply here: graphs only store out-edges, so
+ * an edge into the largest component from outside is only seen from its source.</p>
+ */
+public final class WeaklyConnectedComponents {
+    // Vertices per task.
+    private static final int SLICE_SIZE = 4096;
+
+    private WeaklyConnectedComponents() { /* static */ }
+
+    public static ConnectedComponents compute(DirectedGraph graph) {
+        return compute(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the components on the given pool. The graph is read from several
+     * threads at once.
+     */
+    public static ConnectedComponents compute(DirectedGraph graph, ForkJoinPool pool) {
+        int numVertices = graph.numVertices();
+        AtomicIntegerArray parent = new AtomicIntegerArray(numVertices);
+        for (int v = 0; v < numVertices; v++) {
+            parent.set(v, v);
+        }
+        pool.invoke(new LinkSlice(graph, parent, 0, numVertices));
+        // Every union has finished, so each find now leads to the final root.
+        int[] rootOf = new int[numVertices];
+        for (int v = 0; v < numVertices; v++) {
+            rootOf[v] = find(parent, v);
+        }
+        return ConnectedComponents.fromRepresentatives(rootOf);
+    }
+
+    private static int find(AtomicIntegerArray parent, int vertex) {
+        int current = vertex;
+        int next = parent.get(current);
+        while (next != current) {
+            int grandparent = parent.get(next);
+            // Path halving: skip a generation. Losing this race is harmless.
+            if (grandparent != next) parent.compareAndSet(current, next, grandparent);
+            current = grandparent;
+            next = parent.get(current);
+        }
+        return current;
+    }
+
+    private static void union(AtomicIntegerArray parent, int a, int b) {
+        while (true) {
+            int rootOfA = find(parent, a);
+            int rootOfB = find(parent, b);
+            if (rootOfA == rootOfB) return;
+            int high = Math.max(rootOfA, rootOfB);
+            int low = Math.min(rootOfA, rootOfB);
+            // Fails if another thread linked the high root meanwhile; then look again.
+            if (parent.compareAndSet(high, high, low)) return;
+        }
+    }
+
+    // Unites the ends of all edges out of a range of vertices, splitting it by halves.
+    private static final class LinkSlice extends RecursiveAction implements IntConsumer {
+        private static final long serialVersionUID = 1L;
+
+        private final DirectedGraph graph;
+        private final AtomicIntegerArray parent;
+        private final int from;
+        private final int to;
+        private int currentVertex;
+
+        LinkSlice(DirectedGraph graph, AtomicIntegerArray parent, int from, int to) {
+            this.graph = graph;
+            this.parent = parent;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SLICE_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new LinkSlice(graph, parent, from, middle), new LinkSlice(graph, parent, middle, to));
+                return;
+            }
+            for (int v = from; v < to; v++) {
+                currentVertex = v;
+                graph.forEachChild(v, this);
+            }
+        }
+
+        @Override
+        public void accept(int child) {
+            union(parent, currentVertex, child);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package adm2e.graph.ioutils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Numbers the distinct labels of one chunk of an edge list in order of appearance.
+ * Labels are looked up as byte ranges of the chunk in an open-addressing table, so
+ * a label that was seen before costs a hash and a comparison, and no String.
+ */
+final class ChunkLabels {
+    private static final long EMPTY = -1L;
+
+    private final ByteBuffer buffer;
+    // Each slot packs a label's hash into its high half and its number into the low
+    // half, so most probes that miss never have to look at the label's bytes.
+    private long[] slots;
+    // Each span packs where a label starts in the buffer with its length.
+    private long[] spans;
+    private int size;
+
+    ChunkLabels(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.slots = new long[1024];
+        Arrays.fill(slots, EMPTY);
+        this.spans = new long[512];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * The number of the label in buffer[start, end), assigning the next one if it is new.
+     */
+    int intern(int start, int end) {
+        int hash = hash(start, end);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long entry = slots[slot];
+            if (entry == EMPTY) {
+                return add(slot, hash, start, end);
+            }
+            int label = (int) entry;
+            if ((int) (entry >>> 32) == hash && sameBytes(label, start, end)) return label;
+        }
+    }
+
+    String label(int label) {
+        byte[] bytes = new byte[lengthOf(label)];
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(startOf(label));
+        slice.get(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private int startOf(int label) {
+        return (int) (spans[label] >>> 32);
+    }
+
+    private int lengthOf(int label) {
+        return (int) spans[label];
+    }
+
+    private int add(int slot, int hash, int start, int end) {
+        if (size == spans.length) spans = Arrays.copyOf(spans, 2 * size);
+        int label = size++;
+        spans[label] = ((long) start << 32) | (end - start);
+        slots[slot] = ((long) hash << 32) | label;
+        // Keep the table at most half full.
+        if (2 * size > slots.length) rehash();
+        return label;
+    }
+
+    private void rehash() {
+        long[] old = slots;
+        slots = new long[2 * old.length];
+        Arrays.fill(slots, EMPTY);
+        int mask = slots.length - 1;
+        for (long entry : old) {
+            if (entry == EMPTY) continue;
+            int slot = (int) (entry >>> 32) & mask;
+            while (slots[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = entry;
+        }
+    }
+
+    private boolean sameBytes(int label, int start, int end) {
+        if (lengthOf(label) != end - start) return false;
+        int other = startOf(label);
+        for (int i = start; i < end; i++, other++) {
+            if (buffer.get(i) != buffer.get(other)) return false;
+        }
+        return true;
+    }
+
+    private int hash(int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + buffer.get(i);
+        }
+        // Murmur3's finalizer, since the table is indexed by the low bits and labels
+        // like consecutive numbers would otherwise land in long runs of slots.
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+}
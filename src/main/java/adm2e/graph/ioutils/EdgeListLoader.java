@@ -0,0 +1,281 @@
+package adm2e.graph.ioutils;
+
+import adm2e.graph.representations.CsrGraph;
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * <p>Loads an edge list in the graph demo's format straight into a {@link CsrGraph}.
+ * Lines are "LABEL OPERATOR LABEL", optionally followed by a weight, where the
+ * operator is one of -&gt;, &lt;-, &lt;-&gt; or -- (with = allowed in place of -).
+ * Lines that are empty or only whitespace are skipped.</p>
+ * <p>The file is memory-mapped in chunks that end at line boundaries, and the chunks
+ * are scanned in parallel by a hand-written tokenizer, each into a label table of its
+ * own that only creates a String the first time it sees a label. The tables are then
+ * merged in file order, so vertices are numbered by first appearance, exactly as the
+ * graph builders number them, and the CSR arrays are assembled by a parallel counting
+ * sort. Children come out sorted.</p>
+ */
+public final class EdgeListLoader {
+    private static final long DEFAULT_CHUNK_BYTES = 16L << 20;
+    // How far ahead to read at a time when looking for the end of a line.
+    private static final int BOUNDARY_PROBE_BYTES = 4096;
+
+    private EdgeListLoader() { /* utility class */ }
+
+    public static CsrGraph load(Path file) throws IOException {
+        return load(file, ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES);
+    }
+
+    public static CsrGraph load(Path file, ForkJoinPool pool, long chunkBytes) throws IOException {
+        if (chunkBytes <= 0 || chunkBytes > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Chunk size must be positive and below 2GB!");
+        List<Chunk> chunks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = 0;
+            while (start < size) {
+                long end = lineBoundaryAfter(channel, Math.min(size, start + chunkBytes));
+                chunks.add(new Chunk(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start)));
+                start = end;
+            }
+        }
+        // The mappings stay valid after the channel is closed.
+        runAll(pool, chunks, Chunk::parse);
+        // Sized for the worst case, where no two chunks share a label.
+        int maxLabels = chunks.stream().mapToInt(chunk -> chunk.labels.size()).sum();
+        TObjectIntHashMap<String> keyOfLabel = new TObjectIntHashMap<>(maxLabels, 0.5f, -1);
+        List<String> labels = new ArrayList<>();
+        int numEdges = 0;
+        boolean weighted = false;
+        for (Chunk chunk : chunks) {
+            chunk.firstEdge = numEdges;
+            numEdges += chunk.from.size();
+            weighted |= chunk.weights != null;
+            chunk.keyOfLocal = new int[chunk.labels.size()];
+            for (int local = 0; local < chunk.labels.size(); local++) {
+                String label = chunk.labels.label(local);
+                int key = keyOfLabel.get(label);
+                if (key == -1) {
+                    key = labels.size();
+                    keyOfLabel.put(label, key);
+                    labels.add(label);
+                }
+                chunk.keyOfLocal[local] = key;
+            }
+        }
+        int[] from = new int[numEdges];
+        int[] to = new int[numEdges];
+        double[] weights = weighted ? new double[numEdges] : null;
+        runAll(pool, chunks, chunk -> chunk.copyEdges(from, to, weights));
+        return CsrGraph.fromEdges(labels.toArray(new String[0]), from, to, weights, pool);
+    }
+
+    // The position just past the first newline at or after the given one, or the end.
+    private static long lineBoundaryAfter(FileChannel channel, long position) throws IOException {
+        long size = channel.size();
+        if (position >= size) return size;
+        ByteBuffer probe = ByteBuffer.allocate(BOUNDARY_PROBE_BYTES);
+        // The chunk may already end right after a newline.
+        long current = position - 1;
+        while (current < size) {
+            probe.clear();
+            int read = channel.read(probe, current);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') return current + i + 1;
+            }
+            current += read;
+        }
+        return size;
+    }
+
+    private static void runAll(ForkJoinPool pool, List<Chunk> chunks, ChunkTask task) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            tasks.add(ForkJoinTask.adapt(() -> task.run(chunk)));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+    }
+
+    @FunctionalInterface
+    private interface ChunkTask {
+        void run(Chunk chunk);
+    }
+
+    // The edges of one chunk, with endpoints as indexes into the chunk's label table
+    // until they are translated into vertex keys.
+    private static final class Chunk {
+        private final MappedByteBuffer buffer;
+        private final ChunkLabels labels;
+        private final TIntArrayList from = new TIntArrayList();
+        private final TIntArrayList to = new TIntArrayList();
+        // Stays null until the first weighted edge; NaN stands for no weight.
+        private TDoubleArrayList weights;
+        private int firstEdge;
+        private int[] keyOfLocal;
+
+        Chunk(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+            this.labels = new ChunkLabels(buffer);
+        }
+
+        void parse() {
+            int limit = buffer.limit();
+            int lineStart = 0;
+            while (lineStart < limit) {
+                int lineEnd = lineStart;
+                while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                parseLine(lineStart, lineEnd);
+                lineStart = lineEnd + 1;
+            }
+        }
+
+        private void parseLine(int start, int end) {
+            int p = skipSpace(start, end);
+            if (p == end) return;
+            int firstStart = p;
+            p = skipAlnum(p, end);
+            int firstEnd = p;
+            if (firstEnd == firstStart) throw mismatch(start, end);
+            p = skipSpace(p, end);
+            boolean lt = p < end && buffer.get(p) == '<';
+            if (lt) p = skipSpace(p + 1, end);
+            int dashes = p;
+            while (p < end && (buffer.get(p) == '-' || buffer.get(p) == '=')) {
+                p++;
+            }
+            if (p == dashes) throw mismatch(start, end);
+            p = skipSpace(p, end);
+            boolean gt = p < end && buffer.get(p) == '>';
+            if (gt) p = skipSpace(p + 1, end);
+            int secondStart = p;
+            p = skipAlnum(p, end);
+            int secondEnd = p;
+            if (secondEnd == secondStart) throw mismatch(start, end);
+            double weight = Double.NaN;
+            int afterSpace = skipSpace(p, end);
+            if (afterSpace > p && afterSpace < end) {
+                int weightEnd = skipNumber(afterSpace, end);
+                if (weightEnd == afterSpace) throw mismatch(start, end);
+                weight = parseNumber(afterSpace, weightEnd);
+                afterSpace = skipSpace(weightEnd, end);
+            }
+            if (afterSpace != end) throw mismatch(start, end);
+            // Labels are numbered in the order the edges name them, as in the builders.
+            int firstLabel;
+            int secondLabel;
+            if (lt && !gt) {
+                secondLabel = labels.intern(secondStart, secondEnd);
+                firstLabel = labels.intern(firstStart, firstEnd);
+            } else {
+                firstLabel = labels.intern(firstStart, firstEnd);
+                secondLabel = labels.intern(secondStart, secondEnd);
+            }
+            if (!lt) add(firstLabel, secondLabel, weight);
+            if (!gt) add(secondLabel, firstLabel, weight);
+            if (lt && gt) {
+                add(firstLabel, secondLabel, weight);
+                add(secondLabel, firstLabel, weight);
+            }
+        }
+
+        private void add(int fromLabel, int toLabel, double weight) {
+            if (!Double.isNaN(weight) && weights == null) {
+                weights = new TDoubleArrayList(Math.max(16, from.size() * 2));
+                weights.fill(0, from.size(), Double.NaN);
+            }
+            from.add(fromLabel);
+            to.add(toLabel);
+            if (weights != null) weights.add(weight);
+        }
+
+        private int skipSpace(int p, int end) {
+            while (p < end && isSpace(buffer.get(p))) {
+                p++;
+            }
+            return p;
+        }
+
+        private int skipAlnum(int p, int end) {
+            while (p < end && isAlnum(buffer.get(p))) {
+                p++;
+            }
+            return p;
+        }
+
+        // Digits, optionally followed by a point and more digits.
+        private int skipNumber(int p, int end) {
+            int digits = p;
+            while (p < end && isDigit(buffer.get(p))) {
+                p++;
+            }
+            if (p == digits) return digits;
+            if (p + 1 < end && buffer.get(p) == '.' && isDigit(buffer.get(p + 1))) {
+                p += 2;
+                while (p < end && isDigit(buffer.get(p))) {
+                    p++;
+                }
+            }
+            return p;
+        }
+
+        // Weights are rare enough to go through the JDK, which rounds correctly.
+        private double parseNumber(int start, int end) {
+            return Double.parseDouble(new String(bytes(start, end), StandardCharsets.US_ASCII));
+        }
+
+        private RuntimeException mismatch(int start, int end) {
+            String line = new String(bytes(start, end), StandardCharsets.UTF_8).trim();
+            return new RuntimeException(
+                line + " does not match pattern \"LABEL <-> | -- | <- | -> LABEL [WEIGHT]\"!");
+        }
+
+        private byte[] bytes(int start, int end) {
+            byte[] bytes = new byte[end - start];
+            ByteBuffer slice = buffer.duplicate();
+            slice.position(start);
+            slice.get(bytes);
+            return bytes;
+        }
+
+        void copyEdges(int[] allFrom, int[] allTo, double[] allWeights) {
+            for (int i = 0; i < from.size(); i++) {
+                allFrom[firstEdge + i] = keyOfLocal[from.getQuick(i)];
+                allTo[firstEdge + i] = keyOfLocal[to.getQuick(i)];
+                if (allWeights != null) {
+                    double weight = weights == null ? Double.NaN : weights.getQuick(i);
+                    allWeights[firstEdge + i] = Double.isNaN(weight) ? 1.0 : weight;
+                }
+            }
+        }
+    }
+
+    // Same characters as \s and \p{Alnum} in the demo's regular expression.
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+    }
+
+    private static boolean isAlnum(byte b) {
+        return isDigit(b) || (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
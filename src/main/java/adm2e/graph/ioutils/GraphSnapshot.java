@@ -0,0 +1,212 @@
+package adm2e.graph.ioutils;
+
+import adm2e.graph.representations.CsrGraph;
+import adm2e.graph.representations.DirectedGraph;
+import adm2e.graph.representations.EdgeIndexedGraph;
+import adm2e.graph.representations.LabelDictionary;
+import adm2e.graph.representations.MappedCsrGraph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>A binary snapshot of a graph in CSR form, which opens by memory-mapping the
+ * file and serving the graph from the mapped pages through a {@link MappedCsrGraph}.
+ * The reversed edges are stored as well, so that searches that need in-edges do not
+ * have to build a transpose on the heap either.</p>
+ * <p>The layout, in little-endian byte order:</p>
+ * <table>
+ *     <tr><td>0</td><td>int</td><td>magic number</td></tr>
+ *     <tr><td>4</td><td>int</td><td>format version</td></tr>
+ *     <tr><td>8</td><td>int</td><td>number of vertices, N</td></tr>
+ *     <tr><td>12</td><td>int</td><td>number of edges, M</td></tr>
+ *     <tr><td>16</td><td>int</td><td>flags; bit 0 is set if there are weights</td></tr>
+ *     <tr><td>20</td><td>int</td><td>length of the label blob in bytes</td></tr>
+ *     <tr><td>24</td><td>long</td><td>offset of the targets</td></tr>
+ *     <tr><td>32</td><td>long</td><td>offset of the weights, or 0</td></tr>
+ *     <tr><td>40</td><td>long</td><td>offset of the label offsets</td></tr>
+ *     <tr><td>48</td><td>long</td><td>offset of the vertices sorted by label</td></tr>
+ *     <tr><td>56</td><td>long</td><td>offset of the label blob</td></tr>
+ *     <tr><td>64</td><td>long</td><td>offset of the reversed edge offsets</td></tr>
+ *     <tr><td>72</td><td>long</td><td>offset of the reversed edge targets</td></tr>
+ *     <tr><td>80</td><td>long</td><td>offset of the reversed edge weights, or 0</td></tr>
+ *     <tr><td>88</td><td>int[N + 1]</td><td>edge offsets of the vertices</td></tr>
+ *     <tr><td>...</td><td>int[M]</td><td>edge targets, then padding to 8 bytes</td></tr>
+ *     <tr><td>...</td><td>double[M]</td><td>edge weights, if any</td></tr>
+ *     <tr><td>...</td><td>int[N + 1]</td><td>reversed edge offsets</td></tr>
+ *     <tr><td>...</td><td>int[M]</td><td>reversed edge targets, then padding to 8 bytes</td></tr>
+ *     <tr><td>...</td><td>double[M]</td><td>reversed edge weights, if any</td></tr>
+ *     <tr><td>...</td><td>int[N + 1]</td><td>offsets of the labels in the blob</td></tr>
+ *     <tr><td>...</td><td>int[N]</td><td>vertices in order of their labels' UTF-8 bytes</td></tr>
+ *     <tr><td>...</td><td>byte[]</td><td>UTF-8 label blob</td></tr>
+ * </table>
+ * <p>A snapshot is one mapping, so it must stay under 2GB.</p>
+ */
+public final class GraphSnapshot {
+    private static final int MAGIC = 0x4752_5048; // "GRPH"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 88;
+    private static final int FLAG_WEIGHTED = 1;
+
+    private GraphSnapshot() { /* utility class */ }
+
+    /**
+     * True if the file starts like a snapshot, so callers can tell it from text input.
+     */
+    public static boolean isSnapshot(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (magic.hasRemaining()) {
+                if (channel.read(magic) < 0) return false;
+            }
+            return magic.getInt(0) == MAGIC;
+        }
+    }
+
+    public static MappedCsrGraph open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException(file + " is too large to map!");
+            // The mapping stays valid after the channel is closed.
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < HEADER_SIZE
+            || buffer.getInt(0) != MAGIC
+            || buffer.getInt(4) != VERSION) {
+            throw new IOException(file + " is not a graph snapshot!");
+        }
+        int numVertices = buffer.getInt(8);
+        int numEdges = buffer.getInt(12);
+        boolean weighted = (buffer.getInt(16) & FLAG_WEIGHTED) != 0;
+        int blobLength = buffer.getInt(20);
+        long blobOffset = buffer.getLong(56);
+        if (blobOffset + blobLength != buffer.limit()) {
+            throw new IOException(file + " is truncated!");
+        }
+        MappedCsrGraph graph = new MappedCsrGraph(
+            numVertices,
+            section(buffer, HEADER_SIZE, 4L * (numVertices + 1)).asIntBuffer(),
+            section(buffer, buffer.getLong(24), 4L * numEdges).asIntBuffer(),
+            weighted ? section(buffer, buffer.getLong(32), 8L * numEdges).asDoubleBuffer() : null,
+            section(buffer, buffer.getLong(40), 4L * (numVertices + 1)).asIntBuffer(),
+            section(buffer, blobOffset, blobLength),
+            section(buffer, buffer.getLong(48), 4L * numVertices).asIntBuffer());
+        return graph.withTranspose(
+            section(buffer, buffer.getLong(64), 4L * (numVertices + 1)).asIntBuffer(),
+            section(buffer, buffer.getLong(72), 4L * numEdges).asIntBuffer(),
+            weighted ? section(buffer, buffer.getLong(80), 8L * numEdges).asDoubleBuffer() : null);
+    }
+
+    private static ByteBuffer section(ByteBuffer buffer, long offset, long length) throws IOException {
+        if (offset < HEADER_SIZE || offset + length > buffer.limit()) {
+            throw new IOException("Snapshot section lies outside the file!");
+        }
+        ByteBuffer section = buffer.duplicate();
+        section.position((int) offset);
+        section.limit((int) (offset + length));
+        return section.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Writes a snapshot of any graph, through a temporary file of its own that is renamed
+     * into place, so that concurrent readers never map a half-written file. Graphs that
+     * are not in CSR form already are copied into it first.
+     */
+    public static void write(DirectedGraph graph, Path file) throws IOException {
+        CsrGraph csr = graph instanceof CsrGraph ? (CsrGraph) graph : CsrGraph.copyOf(graph, true);
+        CsrGraph reversed = csr.transpose();
+        int numVertices = csr.numVertices();
+        int numEdges = csr.numEdges();
+        LabelDictionary labels = csr.getLabels();
+        long blobLength = labels.blobLength();
+        boolean weighted = csr.isWeighted();
+        long targetsOffset = HEADER_SIZE + 4L * (numVertices + 1);
+        long weightsOffset = weighted ? align8(targetsOffset + 4L * numEdges) : 0;
+        long reversedOffsetsOffset = weighted ? weightsOffset + 8L * numEdges : targetsOffset + 4L * numEdges;
+        long reversedTargetsOffset = reversedOffsetsOffset + 4L * (numVertices + 1);
+        long reversedWeightsOffset = weighted ? align8(reversedTargetsOffset + 4L * numEdges) : 0;
+        long labelOffsetsOffset = weighted
+            ? reversedWeightsOffset + 8L * numEdges
+            : reversedTargetsOffset + 4L * numEdges;
+        long sortedOffset = labelOffsetsOffset + 4L * (numVertices + 1);
+        long blobOffset = sortedOffset + 4L * numVertices;
+        long fileSize = blobOffset + blobLength;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("Graph is too large for a snapshot!");
+        }
+
+        Path absolute = file.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // Fill a mapping of the new file, so nothing the size of the graph is
+                // ever built on the heap.
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(MAGIC)
+                      .putInt(VERSION)
+                      .putInt(numVertices)
+                      .putInt(numEdges)
+                      .putInt(weighted ? FLAG_WEIGHTED : 0)
+                      .putInt((int) blobLength)
+                      .putLong(targetsOffset)
+                      .putLong(weightsOffset)
+                      .putLong(labelOffsetsOffset)
+                      .putLong(sortedOffset)
+                      .putLong(blobOffset)
+                      .putLong(reversedOffsetsOffset)
+                      .putLong(reversedTargetsOffset)
+                      .putLong(reversedWeightsOffset);
+                writeEdges(buffer, csr, HEADER_SIZE, targetsOffset, weightsOffset);
+                writeEdges(buffer, reversed, reversedOffsetsOffset, reversedTargetsOffset, reversedWeightsOffset);
+                // The dictionary's parts are laid out just as they are in the file.
+                labels.writeTo(
+                    section(buffer, labelOffsetsOffset, 4L * (numVertices + 1)).asIntBuffer(),
+                    section(buffer, blobOffset, blobLength),
+                    section(buffer, sortedOffset, 4L * numVertices).asIntBuffer());
+                buffer.force();
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeEdges(ByteBuffer buffer,
+                                   EdgeIndexedGraph graph,
+                                   long offsetsOffset,
+                                   long targetsOffset,
+                                   long weightsOffset) throws IOException {
+        int numVertices = graph.numVertices();
+        int numEdges = graph.numEdges();
+        IntBuffer offsets = section(buffer, offsetsOffset, 4L * (numVertices + 1)).asIntBuffer();
+        for (int v = 0; v <= numVertices; v++) {
+            offsets.put(graph.edgeOffset(v));
+        }
+        IntBuffer targets = section(buffer, targetsOffset, 4L * numEdges).asIntBuffer();
+        for (int e = 0; e < numEdges; e++) {
+            targets.put(graph.edgeTarget(e));
+        }
+        if (graph.isWeighted()) {
+            DoubleBuffer weights = section(buffer, weightsOffset, 8L * numEdges).asDoubleBuffer();
+            for (int e = 0; e < numEdges; e++) {
+                weights.put(graph.edgeWeight(e));
+            }
+        }
+    }
+
+    private static long align8(long offset) {
+        return (offset + 7) & ~7L;
+    }
+}
@@ -0,0 +1,394 @@
+package adm2e.graph.ioutils;
+
+import adm2e.graph.representations.ChunkedMapping;
+import adm2e.graph.representations.LabelDictionary;
+import adm2e.graph.representations.OffHeapCsrGraph;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * <p>A graph file for graphs too large for the heap, opened as an {@link OffHeapCsrGraph}.
+ * It is written by a {@link Builder}, which takes edges one at a time and sorts them
+ * externally: edges are collected into runs of fixed size, each run is sorted and
+ * spilled to a temporary file, and the runs are merged into the CSR arrays, which are
+ * streamed to disk in order. Only the labels and one run are ever on the heap. The
+ * reversed edges are sorted and stored the same way, so that searches that need
+ * in-edges stay off the heap as well.</p>
+ * <p>The layout, in little-endian byte order:</p>
+ * <table>
+ *     <tr><td>0</td><td>int</td><td>magic number</td></tr>
+ *     <tr><td>4</td><td>int</td><td>format version</td></tr>
+ *     <tr><td>8</td><td>int</td><td>number of vertices, N</td></tr>
+ *     <tr><td>12</td><td>int</td><td>length of the label blob in bytes</td></tr>
+ *     <tr><td>16</td><td>long</td><td>number of edges, M</td></tr>
+ *     <tr><td>24</td><td>long</td><td>offset of the targets</td></tr>
+ *     <tr><td>32</td><td>long</td><td>offset of the reversed edge offsets</td></tr>
+ *     <tr><td>40</td><td>long</td><td>offset of the reversed edge targets</td></tr>
+ *     <tr><td>48</td><td>long</td><td>offset of the labels</td></tr>
+ *     <tr><td>56</td><td>long</td><td>unused</td></tr>
+ *     <tr><td>64</td><td>long[N + 1]</td><td>edge offsets of the vertices</td></tr>
+ *     <tr><td>...</td><td>int[M]</td><td>edge targets, then padding to 8 bytes</td></tr>
+ *     <tr><td>...</td><td>long[N + 1]</td><td>reversed edge offsets</td></tr>
+ *     <tr><td>...</td><td>int[M]</td><td>reversed edge targets</td></tr>
+ *     <tr><td>...</td><td>int[N + 1]</td><td>offsets of the labels in the blob</td></tr>
+ *     <tr><td>...</td><td>int[N]</td><td>vertices in order of their labels' UTF-8 bytes</td></tr>
+ *     <tr><td>...</td><td>byte[]</td><td>UTF-8 label blob</td></tr>
+ * </table>
+ */
+public final class OffHeapGraphFile {
+    private static final int MAGIC = 0x4752_504C; // "GRPL"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+
+    private OffHeapGraphFile() { /* utility class */ }
+
+    /**
+     * True if the file starts like an off-heap graph, so callers can tell it from
+     * other input.
+     */
+    public static boolean isOffHeapGraph(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (magic.hasRemaining()) {
+                if (channel.read(magic) < 0) return false;
+            }
+            return magic.getInt(0) == MAGIC;
+        }
+    }
+
+    public static OffHeapCsrGraph open(Path file) throws IOException {
+        ChunkedMapping data;
+        MappedByteBuffer labelBytes;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) throw new IOException(file + " is not an off-heap graph!");
+            // The mappings stay valid after the channel is closed.
+            data = ChunkedMapping.map(channel, FileChannel.MapMode.READ_ONLY, size);
+            if (data.getInt(0) != MAGIC || data.getInt(4) != VERSION)
+                throw new IOException(file + " is not an off-heap graph!");
+            long labelsAt = data.getLong(48);
+            if (labelsAt < HEADER_SIZE || labelsAt > size || size - labelsAt > Integer.MAX_VALUE)
+                throw new IOException(file + " is truncated!");
+            labelBytes = channel.map(FileChannel.MapMode.READ_ONLY, labelsAt, size - labelsAt);
+        }
+        labelBytes.order(ByteOrder.LITTLE_ENDIAN);
+        int numVertices = data.getInt(8);
+        int blobLength = data.getInt(12);
+        if (4L * (numVertices + 1) + 4L * numVertices + blobLength != labelBytes.limit())
+            throw new IOException(file + " is truncated!");
+        LabelDictionary labels = new LabelDictionary(
+            section(labelBytes, 0, 4 * (numVertices + 1)).asIntBuffer(),
+            section(labelBytes, 4 * (2 * numVertices + 1), blobLength),
+            section(labelBytes, 4 * (numVertices + 1), 4 * numVertices).asIntBuffer());
+        OffHeapCsrGraph graph = new OffHeapCsrGraph(data, HEADER_SIZE, data.getLong(24), labels);
+        return graph.withTranspose(data.getLong(32), data.getLong(40));
+    }
+
+    private static ByteBuffer section(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer section = buffer.duplicate();
+        section.position(offset);
+        section.limit(offset + length);
+        return section.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * <p>Takes labeled edges the same way the graph builders do, numbering vertices by
+     * first appearance, and writes them to an off-heap graph file on {@link #build()}.
+     * Repeated edges are dropped, and children come out sorted.</p>
+     * <p>Runs are spilled to a temporary directory next to the output, which is
+     * removed on {@link #close()}.</p>
+     */
+    public static final class Builder implements Closeable {
+        private static final int DEFAULT_EDGES_PER_RUN = 1 << 24;
+
+        private final Path output;
+        private final Path runDirectory;
+        private final TObjectIntHashMap<String> keyOfLabel = new TObjectIntHashMap<>(16, 0.5f, -1);
+        private final List<String> labels = new ArrayList<>();
+        // Edges packed as source << 32 | target; vertex numbers are never negative,
+        // so sorting the longs sorts by source and then by target.
+        private final long[] run;
+        private int runSize;
+        private final List<Run> forwardRuns = new ArrayList<>();
+        private final List<Run> reversedRuns = new ArrayList<>();
+
+        public Builder(Path output) throws IOException {
+            this(output, DEFAULT_EDGES_PER_RUN);
+        }
+
+        /**
+         * A run of n edges takes 8n bytes of heap while it is sorted.
+         */
+        public Builder(Path output, int edgesPerRun) throws IOException {
+            if (edgesPerRun < 1) throw new IllegalArgumentException("Runs must hold at least one edge!");
+            Path absolute = output.toAbsolutePath();
+            this.output = absolute;
+            this.runDirectory = Files.createTempDirectory(absolute.getParent(), absolute.getFileName() + ".runs");
+            this.run = new long[edgesPerRun];
+        }
+
+        /**
+         * Throws an UncheckedIOException if a full run cannot be spilled.
+         */
+        public Builder addEdge(String fromLabel, String toLabel, boolean directed) {
+            int keyOfFrom = keyOf(fromLabel);
+            int keyOfTo = keyOf(toLabel);
+            add(keyOfFrom, keyOfTo);
+            if (!directed) add(keyOfTo, keyOfFrom);
+            return this;
+        }
+
+        private int keyOf(String label) {
+            int key = keyOfLabel.get(label);
+            if (key == -1) {
+                key = labels.size();
+                keyOfLabel.put(label, key);
+                labels.add(label);
+            }
+            return key;
+        }
+
+        private void add(int from, int to) {
+            if (runSize == run.length) {
+                try {
+                    spill();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            run[runSize++] = ((long) from << 32) | to;
+        }
+
+        // Writes the current run sorted both ways, and starts a new one.
+        private void spill() throws IOException {
+            Arrays.parallelSort(run, 0, runSize);
+            forwardRuns.add(Run.write(runDirectory, run, runSize));
+            for (int i = 0; i < runSize; i++) {
+                run[i] = (run[i] >>> 32) | (run[i] << 32);
+            }
+            Arrays.parallelSort(run, 0, runSize);
+            reversedRuns.add(Run.write(runDirectory, run, runSize));
+            runSize = 0;
+        }
+
+        /**
+         * Merges the runs into the output file, through a temporary file of its own that
+         * is renamed into place, and opens it.
+         */
+        public OffHeapCsrGraph build() throws IOException {
+            if (runSize > 0) spill();
+            int numVertices = labels.size();
+            LabelDictionary dictionary = LabelDictionary.of(labels.toArray(new String[0]));
+            Path temp = Files.createTempFile(output.getParent(), output.getFileName().toString(), ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    long targetsAt = HEADER_SIZE + 8L * (numVertices + 1);
+                    long numEdges = merge(forwardRuns, channel, HEADER_SIZE, targetsAt, numVertices);
+                    long reversedOffsetsAt = align8(targetsAt + 4 * numEdges);
+                    long reversedTargetsAt = reversedOffsetsAt + 8L * (numVertices + 1);
+                    merge(reversedRuns, channel, reversedOffsetsAt, reversedTargetsAt, numVertices);
+                    long labelsAt = reversedTargetsAt + 4 * numEdges;
+                    long labelsLength = 4L * (numVertices + 1) + 4L * numVertices + dictionary.blobLength();
+                    if (labelsLength > Integer.MAX_VALUE) throw new IOException("Labels are too large to store!");
+                    ByteBuffer labelBytes = ByteBuffer.allocate((int) labelsLength).order(ByteOrder.LITTLE_ENDIAN);
+                    dictionary.writeTo(
+                        section(labelBytes, 0, 4 * (numVertices + 1)).asIntBuffer(),
+                        section(labelBytes, 4 * (2 * numVertices + 1), dictionary.blobLength()),
+                        section(labelBytes, 4 * (numVertices + 1), 4 * numVertices).asIntBuffer());
+                    writeFully(channel, labelBytes, labelsAt);
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                    header.putInt(MAGIC)
+                          .putInt(VERSION)
+                          .putInt(numVertices)
+                          .putInt(dictionary.blobLength())
+                          .putLong(numEdges)
+                          .putLong(targetsAt)
+                          .putLong(reversedOffsetsAt)
+                          .putLong(reversedTargetsAt)
+                          .putLong(labelsAt)
+                          .putLong(0)
+                          .flip();
+                    writeFully(channel, header, 0);
+                    channel.force(true);
+                }
+                Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            return open(output);
+        }
+
+        // K-way merge of sorted runs into CSR form. Repeats are dropped as they come out
+        // next to each other. Returns the number of edges written.
+        private static long merge(List<Run> runs,
+                                  FileChannel channel,
+                                  long offsetsAt,
+                                  long targetsAt,
+                                  int numVertices) throws IOException {
+            PriorityQueue<RunReader> queue = new PriorityQueue<>(Comparator.comparingLong(r -> r.head));
+            List<RunReader> readers = new ArrayList<>();
+            try (SequentialWriter offsets = new SequentialWriter(channel, offsetsAt);
+                 SequentialWriter targets = new SequentialWriter(channel, targetsAt)) {
+                for (Run run : runs) {
+                    RunReader reader = new RunReader(run);
+                    readers.add(reader);
+                    if (reader.advance()) queue.add(reader);
+                }
+                long numEdges = 0;
+                long previous = -1;
+                int nextVertex = 0;
+                while (!queue.isEmpty()) {
+                    RunReader reader = queue.poll();
+                    long edge = reader.head;
+                    if (reader.advance()) queue.add(reader);
+                    if (edge == previous) continue;
+                    previous = edge;
+                    int from = (int) (edge >>> 32);
+                    while (nextVertex <= from) {
+                        offsets.putLong(numEdges);
+                        nextVertex++;
+                    }
+                    targets.putInt((int) edge);
+                    numEdges++;
+                }
+                while (nextVertex <= numVertices) {
+                    offsets.putLong(numEdges);
+                    nextVertex++;
+                }
+                return numEdges;
+            } finally {
+                for (RunReader reader : readers) {
+                    reader.close();
+                }
+            }
+        }
+
+        /**
+         * Deletes the spilled runs.
+         */
+        @Override
+        public void close() throws IOException {
+            try (Stream<Path> files = Files.list(runDirectory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(runDirectory);
+        }
+    }
+
+    // A sorted, repeat-free run of packed edges in a temporary file.
+    private static final class Run {
+        private final Path file;
+        private final long size;
+
+        private Run(Path file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+
+        static Run write(Path directory, long[] edges, int count) throws IOException {
+            Path file = Files.createTempFile(directory, "run", ".bin");
+            long size = 0;
+            try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+                for (int i = 0; i < count; i++) {
+                    if (i > 0 && edges[i] == edges[i - 1]) continue;
+                    out.writeLong(edges[i]);
+                    size++;
+                }
+            }
+            return new Run(file, size);
+        }
+    }
+
+    private static final class RunReader implements Closeable {
+        private final DataInputStream in;
+        private long remaining;
+        private long head;
+
+        RunReader(Run run) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run.file), 1 << 16));
+            this.remaining = run.size;
+        }
+
+        // Moves on to the next edge, or returns false at the end of the run.
+        boolean advance() throws IOException {
+            if (remaining == 0) return false;
+            head = in.readLong();
+            remaining--;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    // Writes ints and longs to consecutive positions of a file through a buffer.
+    private static final class SequentialWriter implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        SequentialWriter(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        void putInt(int value) throws IOException {
+            if (buffer.remaining() < 4) flush();
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            if (buffer.remaining() < 8) flush();
+            buffer.putLong(value);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            position += writeFully(channel, buffer, position);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    private static long align8(long offset) {
+        return (offset + 7) & ~7L;
+    }
+}
@@ -10,6 +10,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 
 public class AdjacencyListGraph implements DirectedGraph {
     private final List<TIntArrayList> edges;
@@ -65,4 +67,29 @@ public class AdjacencyListGraph implements DirectedGraph {
         if (deduplicateEdges) return new TIntHashSet(edges.get(vertex));
         else return new TIntArrayList(edges.get(vertex));
     }
+
+    @Override
+    public int outDegree(int vertex) {
+        if (vertex < 0 || vertex >= numVertices()) return 0;
+        return edges.get(vertex).size();
+    }
+
+    @Override
+    public boolean forEachChildWhile(int vertex, IntPredicate action) {
+        if (vertex < 0 || vertex >= numVertices()) return true;
+        TIntArrayList children = edges.get(vertex);
+        for (int i = 0; i < children.size(); i++) {
+            if (!action.test(children.getQuick(i))) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void forEachChild(int vertex, IntConsumer action) {
+        if (vertex < 0 || vertex >= numVertices()) return;
+        TIntArrayList children = edges.get(vertex);
+        for (int i = 0; i < children.size(); i++) {
+            action.accept(children.getQuick(i));
+        }
+    }
 }
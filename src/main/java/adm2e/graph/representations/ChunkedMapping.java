@@ -0,0 +1,70 @@
+package adm2e.graph.representations;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * <p>A file of any size, memory-mapped as a row of 1GB buffers, because a single
+ * buffer cannot go past 2GB. Reads and writes take long byte positions. Ints and
+ * longs must sit at positions that are multiples of their size, so that none of them
+ * straddles two buffers.</p>
+ * <p>All accesses are absolute, so one mapping can serve several threads.</p>
+ */
+public final class ChunkedMapping {
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private final MappedByteBuffer[] chunks;
+    private final long size;
+
+    private ChunkedMapping(MappedByteBuffer[] chunks, long size) {
+        this.chunks = chunks;
+        this.size = size;
+    }
+
+    /**
+     * Maps the first {@code size} bytes of the channel's file, growing the file if the
+     * mode is READ_WRITE. The mapping stays valid after the channel is closed.
+     */
+    public static ChunkedMapping map(FileChannel channel, FileChannel.MapMode mode, long size) throws IOException {
+        int numChunks = (int) ((size + CHUNK_MASK) >>> CHUNK_SHIFT);
+        MappedByteBuffer[] chunks = new MappedByteBuffer[numChunks];
+        for (int i = 0; i < numChunks; i++) {
+            long start = (long) i << CHUNK_SHIFT;
+            chunks[i] = channel.map(mode, start, Math.min(size - start, 1L << CHUNK_SHIFT));
+            chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return new ChunkedMapping(chunks, size);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public int getInt(long position) {
+        return chunks[(int) (position >>> CHUNK_SHIFT)].getInt((int) (position & CHUNK_MASK));
+    }
+
+    public long getLong(long position) {
+        return chunks[(int) (position >>> CHUNK_SHIFT)].getLong((int) (position & CHUNK_MASK));
+    }
+
+    public void putInt(long position, int value) {
+        chunks[(int) (position >>> CHUNK_SHIFT)].putInt((int) (position & CHUNK_MASK), value);
+    }
+
+    public void putLong(long position, long value) {
+        chunks[(int) (position >>> CHUNK_SHIFT)].putLong((int) (position & CHUNK_MASK), value);
+    }
+
+    /**
+     * Writes any changes through to the file.
+     */
+    public void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+}
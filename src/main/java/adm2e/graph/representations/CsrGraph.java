@@ -0,0 +1,558 @@
+package adm2e.graph.representations;
+
+import gnu.trove.TIntCollection;
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import gnu.trove.set.hash.TIntHashSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * <p>An immutable graph in compressed sparse row form. The children of vertex v are
+ * {@code targets[offsets[v]]} through {@code targets[offsets[v + 1] - 1]}, so the
+ * whole adjacency structure is two flat int arrays, no matter how many vertices
+ * there are. Children are deduplicated at build time, and optionally sorted.</p>
+ * <p>Edges may carry weights, kept in a {@code double[]} parallel to the targets.
+ * When an edge is given more than once, the lightest copy is kept.</p>
+ * <p>Labels are packed into a {@link LabelDictionary}, which costs a few bytes per
+ * vertex instead of a String and two hash table entries.</p>
+ * <p>Build one from an existing graph with {@link #copyOf(DirectedGraph, boolean)},
+ * or directly from a stream of edges with a {@link Builder}.</p>
+ */
+public final class CsrGraph implements EdgeIndexedGraph {
+    // Edges and vertices per task when building in parallel.
+    private static final int EDGE_GRAIN = 1 << 16;
+    private static final int VERTEX_GRAIN = 1 << 12;
+
+    private final int[] offsets;
+    private final int[] targets;
+    // Null for unweighted graphs, where every edge weighs 1.
+    private final double[] weights;
+    private final LabelDictionary labels;
+    // Built on first use. The transpose points back here, so it is only built once.
+    private volatile CsrGraph transpose;
+
+    private CsrGraph(int[] offsets, int[] targets, double[] weights, String[] labels) {
+        this(offsets, targets, weights, LabelDictionary.of(labels));
+    }
+
+    // Graphs over the same vertices as an existing one can share its labels.
+    private CsrGraph(int[] offsets, int[] targets, double[] weights, LabelDictionary labels) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.labels = labels;
+    }
+
+    /**
+     * Freezes any graph into CSR form, keeping its vertex indexes and labels, and
+     * its weights if it has any.
+     */
+    public static CsrGraph copyOf(DirectedGraph graph, boolean sortChildren) {
+        if (graph instanceof CsrGraph) {
+            CsrGraph csr = (CsrGraph) graph;
+            return copyOf(csr, csr.labels, sortChildren);
+        }
+        if (graph instanceof EdgeIndexedGraph) {
+            EdgeIndexedGraph edgeIndexed = (EdgeIndexedGraph) graph;
+            return copyOf(edgeIndexed, edgeIndexed.getLabels().copy(), sortChildren);
+        }
+        int numVertices = graph.numVertices();
+        String[] labels = new String[numVertices];
+        for (int v = 0; v < numVertices; v++) {
+            labels[v] = graph.labelOfVertex(v).orElseThrow(() ->
+                new IllegalArgumentException("Graph has vertices without labels!"));
+        }
+        TIntArrayList from = new TIntArrayList();
+        TIntArrayList to = new TIntArrayList();
+        for (int v = 0; v < numVertices; v++) {
+            int vertex = v;
+            graph.forEachChild(v, child -> {
+                from.add(vertex);
+                to.add(child);
+            });
+        }
+        return fromEdges(labels, from.toArray(), to.toArray(), sortChildren);
+    }
+
+    // Graphs that are CSR already only need their arrays copied onto the heap.
+    private static CsrGraph copyOf(EdgeIndexedGraph graph, LabelDictionary labels, boolean sortChildren) {
+        int numVertices = labels.size();
+        int numEdges = graph.numEdges();
+        int[] offsets = new int[numVertices + 1];
+        int[] targets = new int[numEdges];
+        double[] weights = graph.isWeighted() ? new double[numEdges] : null;
+        for (int v = 0; v <= numVertices; v++) {
+            offsets[v] = graph.edgeOffset(v);
+        }
+        for (int e = 0; e < numEdges; e++) {
+            targets[e] = graph.edgeTarget(e);
+            if (weights != null) weights[e] = graph.edgeWeight(e);
+        }
+        if (sortChildren) {
+            for (int v = 0; v < numVertices; v++) {
+                sortRow(targets, weights, offsets[v], offsets[v + 1]);
+            }
+        }
+        return new CsrGraph(offsets, targets, weights, labels);
+    }
+
+    /**
+     * The same graph with every vertex v renumbered to {@code newIndexOf[v]}, which must
+     * be a permutation. Labels and weights move with their vertices, so looking up a
+     * label gives its new index. Rows are copied whole, and sorted again if asked.
+     */
+    public CsrGraph relabeled(int[] newIndexOf, boolean sortChildren) {
+        int numVertices = labels.size();
+        if (newIndexOf.length != numVertices)
+            throw new IllegalArgumentException("Need a new index for every vertex!");
+        int[] oldIndexOf = new int[numVertices];
+        Arrays.fill(oldIndexOf, -1);
+        for (int v = 0; v < numVertices; v++) {
+            int index = newIndexOf[v];
+            if (index < 0 || index >= numVertices || oldIndexOf[index] != -1)
+                throw new IllegalArgumentException("New indexes are not a permutation!");
+            oldIndexOf[index] = v;
+        }
+        int[] newOffsets = new int[numVertices + 1];
+        int[] newTargets = new int[targets.length];
+        double[] newWeights = weights == null ? null : new double[weights.length];
+        for (int index = 0; index < numVertices; index++) {
+            int v = oldIndexOf[index];
+            int position = newOffsets[index];
+            for (int e = offsets[v], end = offsets[v + 1]; e < end; e++, position++) {
+                newTargets[position] = newIndexOf[targets[e]];
+                if (weights != null) newWeights[position] = weights[e];
+            }
+            newOffsets[index + 1] = position;
+            if (sortChildren) sortRow(newTargets, newWeights, newOffsets[index], position);
+        }
+        return new CsrGraph(newOffsets, newTargets, newWeights, labels.relabeled(newIndexOf));
+    }
+
+    /**
+     * Builds the CSR arrays from parallel arrays of edge endpoints with a counting
+     * sort on the source vertex, then drops repeated children of each vertex. Vertex
+     * i gets label i, and the labels must be distinct. The arrays are not kept.
+     */
+    public static CsrGraph fromEdges(String[] labels, int[] from, int[] to, boolean sortChildren) {
+        return fromEdges(labels, from, to, null, sortChildren);
+    }
+
+    /**
+     * Like {@link #fromEdges(String[], int[], int[], boolean)}, with a weight for every
+     * edge, or null for an unweighted graph.
+     */
+    public static CsrGraph fromEdges(String[] labels,
+                                     int[] from,
+                                     int[] to,
+                                     double[] edgeWeights,
+                                     boolean sortChildren) {
+        int numVertices = labels.length;
+        if (from.length != to.length || (edgeWeights != null && edgeWeights.length != from.length))
+            throw new IllegalArgumentException("Edge arrays differ in length!");
+        for (int e = 0; e < from.length; e++) {
+            if (from[e] < 0 || from[e] >= numVertices || to[e] < 0 || to[e] >= numVertices)
+                throw new IllegalArgumentException("Edge " + e + " refers to an unknown vertex!");
+        }
+        int[] offsets = new int[numVertices + 1];
+        for (int f : from) {
+            offsets[f + 1]++;
+        }
+        for (int v = 0; v < numVertices; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] targets = new int[from.length];
+        double[] weights = edgeWeights == null ? null : new double[from.length];
+        int[] next = Arrays.copyOf(offsets, numVertices);
+        for (int e = 0; e < from.length; e++) {
+            int position = next[from[e]]++;
+            targets[position] = to[e];
+            if (weights != null) weights[position] = edgeWeights[e];
+        }
+        int numEdges = deduplicate(offsets, targets, weights, sortChildren);
+        return new CsrGraph(
+            offsets,
+            numEdges == targets.length ? targets : Arrays.copyOf(targets, numEdges),
+            weights == null || numEdges == weights.length ? weights : Arrays.copyOf(weights, numEdges),
+            labels);
+    }
+
+    /**
+     * Like {@link #fromEdges(String[], int[], int[], double[], boolean)}, but counts,
+     * scatters, sorts and deduplicates on the given pool. Children always come out
+     * sorted, so the result does not depend on how the work was scheduled.
+     */
+    public static CsrGraph fromEdges(String[] labels,
+                                     int[] from,
+                                     int[] to,
+                                     double[] edgeWeights,
+                                     ForkJoinPool pool) {
+        int numVertices = labels.length;
+        int numEdges = from.length;
+        if (to.length != numEdges || (edgeWeights != null && edgeWeights.length != numEdges))
+            throw new IllegalArgumentException("Edge arrays differ in length!");
+        AtomicIntegerArray counts = new AtomicIntegerArray(numVertices);
+        pool.invoke(new ParallelRange(0, numEdges, EDGE_GRAIN, (lo, hi) -> {
+            for (int e = lo; e < hi; e++) {
+                if (from[e] < 0 || from[e] >= numVertices || to[e] < 0 || to[e] >= numVertices)
+                    throw new IllegalArgumentException("Edge " + e + " refers to an unknown vertex!");
+                counts.incrementAndGet(from[e]);
+            }
+        }));
+        int[] offsets = new int[numVertices + 1];
+        for (int v = 0; v < numVertices; v++) {
+            offsets[v + 1] = offsets[v] + counts.get(v);
+            counts.set(v, offsets[v]);
+        }
+        // Each edge claims the next free slot of its row; rows are sorted afterwards.
+        int[] targets = new int[numEdges];
+        double[] weights = edgeWeights == null ? null : new double[numEdges];
+        pool.invoke(new ParallelRange(0, numEdges, EDGE_GRAIN, (lo, hi) -> {
+            for (int e = lo; e < hi; e++) {
+                int position = counts.getAndIncrement(from[e]);
+                targets[position] = to[e];
+                if (weights != null) weights[position] = edgeWeights[e];
+            }
+        }));
+        int[] rowLength = new int[numVertices];
+        pool.invoke(new ParallelRange(0, numVertices, VERTEX_GRAIN, (lo, hi) -> {
+            for (int v = lo; v < hi; v++) {
+                sortRow(targets, weights, offsets[v], offsets[v + 1]);
+                rowLength[v] = deduplicateSortedRow(targets, weights, offsets[v], offsets[v + 1]);
+            }
+        }));
+        int[] keptOffsets = new int[numVertices + 1];
+        for (int v = 0; v < numVertices; v++) {
+            keptOffsets[v + 1] = keptOffsets[v] + rowLength[v];
+        }
+        if (keptOffsets[numVertices] == numEdges) return new CsrGraph(offsets, targets, weights, labels);
+        int[] keptTargets = new int[keptOffsets[numVertices]];
+        double[] keptWeights = weights == null ? null : new double[keptTargets.length];
+        pool.invoke(new ParallelRange(0, numVertices, VERTEX_GRAIN, (lo, hi) -> {
+            for (int v = lo; v < hi; v++) {
+                System.arraycopy(targets, offsets[v], keptTargets, keptOffsets[v], rowLength[v]);
+                if (weights != null)
+                    System.arraycopy(weights, offsets[v], keptWeights, keptOffsets[v], rowLength[v]);
+            }
+        }));
+        return new CsrGraph(keptOffsets, keptTargets, keptWeights, labels);
+    }
+
+    // Drops repeats from a sorted row by moving the rest to its front, keeping the
+    // smallest weight of each child. Returns how many children are left.
+    private static int deduplicateSortedRow(int[] targets, double[] weights, int from, int to) {
+        if (from == to) return 0;
+        int write = from;
+        for (int e = from + 1; e < to; e++) {
+            if (targets[e] != targets[write]) {
+                write++;
+                targets[write] = targets[e];
+                if (weights != null) weights[write] = weights[e];
+            } else if (weights != null && weights[e] < weights[write]) {
+                weights[write] = weights[e];
+            }
+        }
+        return write + 1 - from;
+    }
+
+    // Runs a body over a range of indexes, split into halves down to a grain size.
+    private static final class ParallelRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final RangeBody body;
+
+        ParallelRange(int from, int to, int grain, RangeBody body) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                body.run(from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParallelRange(from, middle, grain, body), new ParallelRange(middle, to, grain, body));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RangeBody {
+        void run(int from, int to);
+    }
+
+    // Compacts each row in place, keeping the first occurrence of every child, with
+    // the smallest weight it was given. Returns the number of edges left.
+    private static int deduplicate(int[] offsets, int[] targets, double[] weights, boolean sortChildren) {
+        int numVertices = offsets.length - 1;
+        // lastSeenIn[c] == v + 1 means c already occurred in row v, at keptAt[c].
+        int[] lastSeenIn = new int[numVertices];
+        int[] keptAt = weights == null ? null : new int[numVertices];
+        int write = 0;
+        int rowStart = 0;
+        for (int v = 0; v < numVertices; v++) {
+            int rowEnd = offsets[v + 1];
+            if (sortChildren) sortRow(targets, weights, rowStart, rowEnd);
+            offsets[v] = write;
+            for (int e = rowStart; e < rowEnd; e++) {
+                int child = targets[e];
+                if (lastSeenIn[child] != v + 1) {
+                    lastSeenIn[child] = v + 1;
+                    if (weights != null) {
+                        keptAt[child] = write;
+                        weights[write] = weights[e];
+                    }
+                    targets[write++] = child;
+                } else if (weights != null && weights[e] < weights[keptAt[child]]) {
+                    weights[keptAt[child]] = weights[e];
+                }
+            }
+            rowStart = rowEnd;
+        }
+        offsets[numVertices] = write;
+        return write;
+    }
+
+    // Sorts a row by target, carrying the weights along. Each target is packed with
+    // its position in the row into one long, so a primitive sort does the work.
+    private static void sortRow(int[] targets, double[] weights, int from, int to) {
+        if (weights == null) {
+            Arrays.sort(targets, from, to);
+            return;
+        }
+        int length = to - from;
+        if (length < 2) return;
+        long[] keys = new long[length];
+        for (int i = 0; i < length; i++) {
+            keys[i] = ((long) targets[from + i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        double[] rowWeights = Arrays.copyOfRange(weights, from, to);
+        for (int i = 0; i < length; i++) {
+            targets[from + i] = (int) (keys[i] >>> 32);
+            weights[from + i] = rowWeights[(int) keys[i]];
+        }
+    }
+
+    /**
+     * Throws, since this representation is immutable.
+     */
+    @Override
+    public void addEdge(String from, String to, boolean directed) {
+        throw new UnsupportedOperationException("CsrGraph is immutable; use a Builder.");
+    }
+
+    @Override
+    public int numVertices() {
+        return labels.size();
+    }
+
+    @Override
+    public int numEdges() {
+        return targets.length;
+    }
+
+    @Override
+    public boolean isWeighted() {
+        return weights != null;
+    }
+
+    @Override
+    public LabelDictionary getLabels() {
+        return labels;
+    }
+
+    @Override
+    public Optional<String> labelOfVertex(int vertex) {
+        if (vertex < 0 || vertex >= labels.size()) return Optional.empty();
+        return Optional.of(labels.labelOf(vertex));
+    }
+
+    @Override
+    public OptionalInt indexForLabel(String label) {
+        int key = labels.indexOf(label);
+        return key == NO_SUCH_NODE ? OptionalInt.empty() : OptionalInt.of(key);
+    }
+
+    @Override
+    public TIntCollection childrenOfVertex(int vertex, boolean deduplicateEdges) {
+        if (vertex < 0 || vertex >= numVertices()) return new TIntArrayList();
+        int from = offsets[vertex];
+        int to = offsets[vertex + 1];
+        // Children are already unique, so deduplication only changes the collection type.
+        TIntArrayList children = new TIntArrayList(to - from);
+        children.add(targets, from, to - from);
+        if (deduplicateEdges) return new TIntHashSet(children);
+        else return children;
+    }
+
+    @Override
+    public int outDegree(int vertex) {
+        if (vertex < 0 || vertex >= numVertices()) return 0;
+        return offsets[vertex + 1] - offsets[vertex];
+    }
+
+    @Override
+    public boolean forEachChildWhile(int vertex, IntPredicate action) {
+        if (vertex < 0 || vertex >= numVertices()) return true;
+        for (int e = offsets[vertex], end = offsets[vertex + 1]; e < end; e++) {
+            if (!action.test(targets[e])) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void forEachChild(int vertex, IntConsumer action) {
+        if (vertex < 0 || vertex >= numVertices()) return;
+        for (int e = offsets[vertex], end = offsets[vertex + 1]; e < end; e++) {
+            action.accept(targets[e]);
+        }
+    }
+
+    /**
+     * Builds the reversed graph with one counting sort over the edge array, the first
+     * time it is asked for, and keeps it. Its children come out sorted, and the two
+     * graphs share their label table.
+     */
+    @Override
+    public CsrGraph transpose() {
+        CsrGraph result = transpose;
+        if (result == null) {
+            synchronized (this) {
+                result = transpose;
+                if (result == null) {
+                    result = buildTranspose();
+                    transpose = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private CsrGraph buildTranspose() {
+        int numVertices = labels.size();
+        int[] reversedOffsets = new int[numVertices + 1];
+        for (int target : targets) {
+            reversedOffsets[target + 1]++;
+        }
+        for (int v = 0; v < numVertices; v++) {
+            reversedOffsets[v + 1] += reversedOffsets[v];
+        }
+        // Walking sources in order fills every reversed row in sorted order.
+        int[] reversedTargets = new int[targets.length];
+        double[] reversedWeights = weights == null ? null : new double[weights.length];
+        int[] next = Arrays.copyOf(reversedOffsets, numVertices);
+        for (int v = 0; v < numVertices; v++) {
+            for (int e = offsets[v], end = offsets[v + 1]; e < end; e++) {
+                int position = next[targets[e]]++;
+                reversedTargets[position] = v;
+                if (weights != null) reversedWeights[position] = weights[e];
+            }
+        }
+        CsrGraph reversed = new CsrGraph(reversedOffsets, reversedTargets, reversedWeights, labels);
+        reversed.transpose = this;
+        return reversed;
+    }
+
+    @Override
+    public int edgeOffset(int vertex) {
+        return offsets[vertex];
+    }
+
+    @Override
+    public int edgeTarget(int edge) {
+        return targets[edge];
+    }
+
+    @Override
+    public double edgeWeight(int edge) {
+        return weights == null ? 1.0 : weights[edge];
+    }
+
+    /**
+     * Accumulates labeled edges the same way {@link AdjacencyListGraph} does, but into
+     * two flat lists of endpoints, and builds a {@link CsrGraph} from them in bulk.
+     */
+    public static final class Builder {
+        private final TObjectIntHashMap<String> labelToKey =
+            new TObjectIntHashMap<>(16, 0.5f, NO_SUCH_NODE);
+        private final List<String> labels = new ArrayList<>();
+        private final TIntArrayList from = new TIntArrayList();
+        private final TIntArrayList to = new TIntArrayList();
+        // Stays null until the first weighted edge arrives.
+        private TDoubleArrayList weights;
+
+        /**
+         * Numbers the vertex now if it has not been seen yet, as an edge to or from it
+         * would.
+         */
+        public Builder addVertex(String label) {
+            keyOf(label);
+            return this;
+        }
+
+        public Builder addEdge(String fromLabel, String toLabel, boolean directed) {
+            int keyOfFrom = keyOf(fromLabel);
+            int keyOfTo = keyOf(toLabel);
+            from.add(keyOfFrom);
+            to.add(keyOfTo);
+            if (weights != null) weights.add(1.0);
+            if (!directed) {
+                from.add(keyOfTo);
+                to.add(keyOfFrom);
+                if (weights != null) weights.add(1.0);
+            }
+            return this;
+        }
+
+        /**
+         * Adds a weighted edge. Edges added without a weight weigh 1.
+         */
+        public Builder addEdge(String fromLabel, String toLabel, boolean directed, double weight) {
+            if (weights == null) {
+                weights = new TDoubleArrayList(Math.max(16, from.size() * 2));
+                weights.fill(0, from.size(), 1.0);
+            }
+            addEdge(fromLabel, toLabel, directed);
+            weights.set(weights.size() - 1, weight);
+            if (!directed) weights.set(weights.size() - 2, weight);
+            return this;
+        }
+
+        private int keyOf(String label) {
+            int key = labelToKey.get(label);
+            if (key == NO_SUCH_NODE) {
+                key = labels.size();
+                labelToKey.put(label, key);
+                labels.add(label);
+            }
+            return key;
+        }
+
+        public CsrGraph build(boolean sortChildren) {
+            return fromEdges(
+                labels.toArray(new String[0]),
+                from.toArray(),
+                to.toArray(),
+                weights == null ? null : weights.toArray(),
+                sortChildren);
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package adm2e.graph.representations;
 
 import gnu.trove.TIntCollection;
+import gnu.trove.list.array.TIntArrayList;
 
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 
 public interface DirectedGraph {
 
@@ -15,6 +18,53 @@ public interface DirectedGraph {
     OptionalInt indexForLabel(String label);
     TIntCollection childrenOfVertex(int vertex, boolean deduplicateEdges);
 
+    /**
+     * The number of edges leaving a vertex, or 0 for an invalid vertex. Counts
+     * repeated edges for representations that keep them.
+     */
+    int outDegree(int vertex);
+
+    /**
+     * Feeds the children of a vertex to the action, without copying them anywhere,
+     * until the action returns false. Representations that keep repeated edges feed
+     * repeated children. Does nothing for an invalid vertex.
+     * @return false if the action stopped the iteration early
+     */
+    boolean forEachChildWhile(int vertex, IntPredicate action);
+
+    /**
+     * Like {@link #forEachChildWhile(int, IntPredicate)}, but always visits every child.
+     */
+    default void forEachChild(int vertex, IntConsumer action) {
+        forEachChildWhile(vertex, child -> {
+            action.accept(child);
+            return true;
+        });
+    }
+
+    /**
+     * The graph with every edge reversed, with the same vertex indexes and labels.
+     * Algorithms that need the edges coming into a vertex walk the children of that
+     * vertex in the transpose. The default builds an immutable copy every time it is
+     * called, so callers should hold on to the result.
+     */
+    default DirectedGraph transpose() {
+        int numVertices = numVertices();
+        String[] labels = new String[numVertices];
+        TIntArrayList from = new TIntArrayList();
+        TIntArrayList to = new TIntArrayList();
+        for (int v = 0; v < numVertices; v++) {
+            labels[v] = labelOfVertex(v).orElseThrow(() ->
+                new IllegalArgumentException("Graph has vertices without labels!"));
+            int vertex = v;
+            forEachChild(v, child -> {
+                from.add(child);
+                to.add(vertex);
+            });
+        }
+        return CsrGraph.fromEdges(labels, from.toArray(), to.toArray(), false);
+    }
+
     @FunctionalInterface
     interface EdgeConsumer {
         void consume(int from, int to);
@@ -0,0 +1,34 @@
+package adm2e.graph.representations;
+
+/**
+ * A graph whose edges are numbered consecutively by source vertex, as in compressed
+ * sparse row form: the edges of vertex v are numbers {@code edgeOffset(v)} up to but
+ * not including {@code edgeOffset(v + 1)}. Tight loops can walk them by number
+ * instead of going through a callback, wherever the arrays actually live.
+ */
+public interface EdgeIndexedGraph extends DirectedGraph {
+    int numEdges();
+
+    /**
+     * The labels of all vertices, packed.
+     */
+    LabelDictionary getLabels();
+
+    /**
+     * Index of the first edge of a vertex; valid for every vertex, and for one past
+     * the last vertex, where it is the number of edges.
+     */
+    int edgeOffset(int vertex);
+
+    /**
+     * The child at the far end of an edge.
+     */
+    int edgeTarget(int edge);
+
+    boolean isWeighted();
+
+    /**
+     * The weight of an edge; 1 in unweighted graphs.
+     */
+    double edgeWeight(int edge);
+}
@@ -0,0 +1,167 @@
+package adm2e.graph.representations;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * <p>The labels of a frozen graph in three flat parts: every label's UTF-8 bytes one
+ * after the other in a single blob, the offset where each vertex's label starts, and
+ * the vertices in order of their labels' bytes. Labels are decoded only when asked
+ * for, and found by binary search over that order, so there is no String and no hash
+ * table entry per vertex; a vertex costs eight bytes plus its label.</p>
+ * <p>The parts are buffers, so that a dictionary can live on the heap or be read
+ * straight out of a mapped file, as in {@link MappedCsrGraph}. All reads are
+ * absolute, so one dictionary can serve several threads.</p>
+ */
+public final class LabelDictionary {
+    private final int size;
+    private final IntBuffer offsets;
+    private final ByteBuffer blob;
+    private final IntBuffer verticesByLabel;
+
+    /**
+     * Takes N + 1 offsets into the blob, the blob, and the N vertices in order of
+     * their labels' bytes, compared unsigned. None of them are copied.
+     */
+    public LabelDictionary(IntBuffer offsets, ByteBuffer blob, IntBuffer verticesByLabel) {
+        int size = verticesByLabel.remaining();
+        if (offsets.remaining() != size + 1 || offsets.get(offsets.position() + size) != blob.remaining()) {
+            throw new IllegalArgumentException("Buffers do not describe the same labels!");
+        }
+        this.size = size;
+        this.offsets = offsets.slice();
+        this.blob = blob.slice();
+        this.verticesByLabel = verticesByLabel.slice();
+    }
+
+    /**
+     * Packs the given labels, where vertex i has label i. Throws if two are equal.
+     */
+    public static LabelDictionary of(String[] labels) {
+        int size = labels.length;
+        int[] offsets = new int[size + 1];
+        byte[][] encoded = new byte[size][];
+        long blobLength = 0;
+        for (int v = 0; v < size; v++) {
+            encoded[v] = labels[v].getBytes(StandardCharsets.UTF_8);
+            blobLength += encoded[v].length;
+        }
+        if (blobLength > Integer.MAX_VALUE) throw new IllegalArgumentException("Labels do not fit in one blob!");
+        byte[] blob = new byte[(int) blobLength];
+        for (int v = 0; v < size; v++) {
+            System.arraycopy(encoded[v], 0, blob, offsets[v], encoded[v].length);
+            offsets[v + 1] = offsets[v] + encoded[v].length;
+        }
+        int[] sorted = IntStream.range(0, size)
+            .boxed()
+            .sorted((a, b) -> Arrays.compareUnsigned(encoded[a], encoded[b]))
+            .mapToInt(Integer::intValue)
+            .toArray();
+        for (int i = 1; i < size; i++) {
+            if (Arrays.equals(encoded[sorted[i - 1]], encoded[sorted[i]]))
+                throw new IllegalArgumentException("Label " + labels[sorted[i]] + " is not unique!");
+        }
+        return new LabelDictionary(IntBuffer.wrap(offsets), ByteBuffer.wrap(blob), IntBuffer.wrap(sorted));
+    }
+
+    /**
+     * A copy on the heap, for example of a dictionary in a file that is about to go away.
+     */
+    public LabelDictionary copy() {
+        int[] offsetsCopy = new int[size + 1];
+        byte[] blobCopy = new byte[blob.limit()];
+        int[] sortedCopy = new int[size];
+        offsets.duplicate().get(offsetsCopy);
+        blob.duplicate().get(blobCopy);
+        verticesByLabel.duplicate().get(sortedCopy);
+        return new LabelDictionary(IntBuffer.wrap(offsetsCopy), ByteBuffer.wrap(blobCopy), IntBuffer.wrap(sortedCopy));
+    }
+
+    /**
+     * The same labels, with vertex v renumbered to {@code newIndexOf[v]}. The blob is
+     * rearranged, but the sorted order only needs its vertices renamed.
+     */
+    public LabelDictionary relabeled(int[] newIndexOf) {
+        int[] oldIndexOf = new int[size];
+        for (int v = 0; v < size; v++) {
+            oldIndexOf[newIndexOf[v]] = v;
+        }
+        int[] newOffsets = new int[size + 1];
+        byte[] newBlob = new byte[blob.limit()];
+        for (int index = 0; index < size; index++) {
+            int v = oldIndexOf[index];
+            int length = lengthOf(v);
+            blob.duplicate().position(offsets.get(v)).get(newBlob, newOffsets[index], length);
+            newOffsets[index + 1] = newOffsets[index] + length;
+        }
+        int[] newSorted = new int[size];
+        for (int i = 0; i < size; i++) {
+            newSorted[i] = newIndexOf[verticesByLabel.get(i)];
+        }
+        return new LabelDictionary(IntBuffer.wrap(newOffsets), ByteBuffer.wrap(newBlob), IntBuffer.wrap(newSorted));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The total length of the labels in UTF-8.
+     */
+    public int blobLength() {
+        return blob.limit();
+    }
+
+    public String labelOf(int vertex) {
+        byte[] bytes = new byte[lengthOf(vertex)];
+        blob.duplicate().position(offsets.get(vertex)).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The vertex with the given label, or {@link DirectedGraph#NO_SUCH_NODE}.
+     */
+    public int indexOf(String label) {
+        byte[] wanted = label.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int vertex = verticesByLabel.get(middle);
+            int comparison = compareLabel(vertex, wanted);
+            if (comparison < 0) low = middle + 1;
+            else if (comparison > 0) high = middle - 1;
+            else return vertex;
+        }
+        return DirectedGraph.NO_SUCH_NODE;
+    }
+
+    /**
+     * Copies the three parts into the given buffers, in the layout the constructor
+     * takes. The buffers' positions advance.
+     */
+    public void writeTo(IntBuffer offsetsOut, ByteBuffer blobOut, IntBuffer verticesByLabelOut) {
+        offsetsOut.put(offsets.duplicate());
+        blobOut.put(blob.duplicate());
+        verticesByLabelOut.put(verticesByLabel.duplicate());
+    }
+
+    private int lengthOf(int vertex) {
+        return offsets.get(vertex + 1) - offsets.get(vertex);
+    }
+
+    // Compares a vertex's label with the given bytes, as unsigned bytes.
+    private int compareLabel(int vertex, byte[] wanted) {
+        int from = offsets.get(vertex);
+        int length = lengthOf(vertex);
+        int common = Math.min(length, wanted.length);
+        for (int i = 0; i < common; i++) {
+            int comparison = Integer.compare(blob.get(from + i) & 0xFF, wanted[i] & 0xFF);
+            if (comparison != 0) return comparison;
+        }
+        return Integer.compare(length, wanted.length);
+    }
+}
@@ -0,0 +1,179 @@
+package adm2e.graph.representations;
+
+import gnu.trove.TIntCollection;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.set.hash.TIntHashSet;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * <p>A CSR graph read straight out of buffers, typically views of a memory-mapped
+ * snapshot file. Nothing is copied onto the heap, not even the labels, which are a
+ * {@link LabelDictionary} over the mapped blob. Opening a graph is nearly free, and
+ * processes that map the same file share its pages.</p>
+ * <p>All reads are absolute, so one instance can serve several threads.</p>
+ */
+public final class MappedCsrGraph implements EdgeIndexedGraph {
+    private final int numVertices;
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final DoubleBuffer weights;
+    private final LabelDictionary labels;
+    // Set once, before the graph is handed out, when the in-edges are mapped too.
+    private MappedCsrGraph transpose;
+
+    /**
+     * Takes N + 1 edge offsets, the targets, the weights or null, N + 1 offsets into
+     * the label blob, the blob, and the N vertices in order of their labels' UTF-8
+     * bytes. Rows must be free of repeats.
+     */
+    public MappedCsrGraph(int numVertices,
+                          IntBuffer offsets,
+                          IntBuffer targets,
+                          DoubleBuffer weights,
+                          IntBuffer labelOffsets,
+                          ByteBuffer labelBlob,
+                          IntBuffer verticesByLabel) {
+        this(numVertices, offsets, targets, weights, new LabelDictionary(labelOffsets, labelBlob, verticesByLabel));
+    }
+
+    private MappedCsrGraph(int numVertices,
+                           IntBuffer offsets,
+                           IntBuffer targets,
+                           DoubleBuffer weights,
+                           LabelDictionary labels) {
+        if (offsets.remaining() != numVertices + 1
+            || labels.size() != numVertices
+            || offsets.get(offsets.position() + numVertices) != targets.remaining()
+            || (weights != null && weights.remaining() != targets.remaining())) {
+            throw new IllegalArgumentException("Buffers do not describe the same graph!");
+        }
+        this.numVertices = numVertices;
+        this.offsets = offsets.slice();
+        this.targets = targets.slice();
+        this.weights = weights == null ? null : weights.slice();
+        this.labels = labels;
+    }
+
+    /**
+     * The same graph, whose {@link #transpose()} is served from the given buffers of
+     * reversed edges instead of being built on the heap. The two share their labels.
+     */
+    public MappedCsrGraph withTranspose(IntBuffer reversedOffsets,
+                                        IntBuffer reversedTargets,
+                                        DoubleBuffer reversedWeights) {
+        MappedCsrGraph forward = new MappedCsrGraph(numVertices, offsets, targets, weights, labels);
+        MappedCsrGraph reversed = new MappedCsrGraph(
+            numVertices, reversedOffsets, reversedTargets, reversedWeights, labels);
+        if (reversed.numEdges() != forward.numEdges())
+            throw new IllegalArgumentException("Transpose has a different number of edges!");
+        forward.transpose = reversed;
+        reversed.transpose = forward;
+        return forward;
+    }
+
+    /**
+     * Mapped too if the graph was opened with its transpose; otherwise built on the heap.
+     */
+    @Override
+    public DirectedGraph transpose() {
+        return transpose != null ? transpose : EdgeIndexedGraph.super.transpose();
+    }
+
+    /**
+     * Throws, since this representation is immutable.
+     */
+    @Override
+    public void addEdge(String from, String to, boolean directed) {
+        throw new UnsupportedOperationException("MappedCsrGraph is immutable!");
+    }
+
+    @Override
+    public int numVertices() {
+        return numVertices;
+    }
+
+    @Override
+    public int numEdges() {
+        return targets.limit();
+    }
+
+    @Override
+    public LabelDictionary getLabels() {
+        return labels;
+    }
+
+    @Override
+    public Optional<String> labelOfVertex(int vertex) {
+        if (vertex < 0 || vertex >= numVertices) return Optional.empty();
+        return Optional.of(labels.labelOf(vertex));
+    }
+
+    @Override
+    public OptionalInt indexForLabel(String label) {
+        int vertex = labels.indexOf(label);
+        return vertex == NO_SUCH_NODE ? OptionalInt.empty() : OptionalInt.of(vertex);
+    }
+
+    @Override
+    public TIntCollection childrenOfVertex(int vertex, boolean deduplicateEdges) {
+        if (vertex < 0 || vertex >= numVertices) return new TIntArrayList();
+        int from = offsets.get(vertex);
+        int to = offsets.get(vertex + 1);
+        TIntArrayList children = new TIntArrayList(to - from);
+        for (int e = from; e < to; e++) {
+            children.add(targets.get(e));
+        }
+        if (deduplicateEdges) return new TIntHashSet(children);
+        else return children;
+    }
+
+    @Override
+    public int outDegree(int vertex) {
+        if (vertex < 0 || vertex >= numVertices) return 0;
+        return offsets.get(vertex + 1) - offsets.get(vertex);
+    }
+
+    @Override
+    public boolean forEachChildWhile(int vertex, IntPredicate action) {
+        if (vertex < 0 || vertex >= numVertices) return true;
+        for (int e = offsets.get(vertex), end = offsets.get(vertex + 1); e < end; e++) {
+            if (!action.test(targets.get(e))) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void forEachChild(int vertex, IntConsumer action) {
+        if (vertex < 0 || vertex >= numVertices) return;
+        for (int e = offsets.get(vertex), end = offsets.get(vertex + 1); e < end; e++) {
+            action.accept(targets.get(e));
+        }
+    }
+
+    @Override
+    public int edgeOffset(int vertex) {
+        return offsets.get(vertex);
+    }
+
+    @Override
+    public int edgeTarget(int edge) {
+        return targets.get(edge);
+    }
+
+    @Override
+    public boolean isWeighted() {
+        return weights != null;
+    }
+
+    @Override
+    public double edgeWeight(int edge) {
+        return weights == null ? 1.0 : weights.get(edge);
+    }
+}
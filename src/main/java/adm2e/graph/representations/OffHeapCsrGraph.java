@@ -0,0 +1,149 @@
+package adm2e.graph.representations;
+
+import gnu.trove.TIntCollection;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.set.hash.TIntHashSet;
+
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * <p>A CSR graph kept entirely outside the Java heap, in a {@link ChunkedMapping} of a
+ * file: a long offset for every vertex, then an int target for every edge. Edges are
+ * numbered with longs, so there can be more than 2^31 of them, and the operating
+ * system pages the arrays in and out, so the graph can be larger than the heap, or
+ * than memory. The garbage collector never sees any of it.</p>
+ * <p>Only the labels are limited to what a {@link LabelDictionary} can hold, which is
+ * a 2GB blob; they are mapped from the same file.</p>
+ * <p>All reads are absolute, so one instance can serve several threads.</p>
+ */
+public final class OffHeapCsrGraph implements DirectedGraph {
+    private final int numVertices;
+    private final long numEdges;
+    private final ChunkedMapping data;
+    // Byte positions of the offsets and targets in the mapping.
+    private final long offsetsAt;
+    private final long targetsAt;
+    private final LabelDictionary labels;
+    // Set once, before the graph is handed out, when the in-edges are stored too.
+    private OffHeapCsrGraph transpose;
+
+    /**
+     * Takes a mapping with N + 1 longs at {@code offsetsAt} and as many ints as the
+     * last offset says at {@code targetsAt}, both aligned. Rows must be free of repeats.
+     */
+    public OffHeapCsrGraph(ChunkedMapping data, long offsetsAt, long targetsAt, LabelDictionary labels) {
+        int numVertices = labels.size();
+        if (offsetsAt % 8 != 0 || targetsAt % 4 != 0 || offsetsAt + 8L * (numVertices + 1) > data.size())
+            throw new IllegalArgumentException("Offsets do not fit the mapping!");
+        long numEdges = data.getLong(offsetsAt + 8L * numVertices);
+        if (targetsAt + 4 * numEdges > data.size())
+            throw new IllegalArgumentException("Targets do not fit the mapping!");
+        this.numVertices = numVertices;
+        this.numEdges = numEdges;
+        this.data = data;
+        this.offsetsAt = offsetsAt;
+        this.targetsAt = targetsAt;
+        this.labels = labels;
+    }
+
+    /**
+     * The same graph, whose {@link #transpose()} is served from the reversed edges at
+     * the given positions of the same mapping instead of being built on the heap.
+     */
+    public OffHeapCsrGraph withTranspose(long reversedOffsetsAt, long reversedTargetsAt) {
+        OffHeapCsrGraph forward = new OffHeapCsrGraph(data, offsetsAt, targetsAt, labels);
+        OffHeapCsrGraph reversed = new OffHeapCsrGraph(data, reversedOffsetsAt, reversedTargetsAt, labels);
+        if (reversed.numEdges != forward.numEdges)
+            throw new IllegalArgumentException("Transpose has a different number of edges!");
+        forward.transpose = reversed;
+        reversed.transpose = forward;
+        return forward;
+    }
+
+    /**
+     * Off the heap too if the in-edges were stored; otherwise built on the heap, which
+     * only works if the graph fits there.
+     */
+    @Override
+    public DirectedGraph transpose() {
+        return transpose != null ? transpose : DirectedGraph.super.transpose();
+    }
+
+    /**
+     * Throws, since this representation is immutable.
+     */
+    @Override
+    public void addEdge(String from, String to, boolean directed) {
+        throw new UnsupportedOperationException("OffHeapCsrGraph is immutable!");
+    }
+
+    @Override
+    public int numVertices() {
+        return numVertices;
+    }
+
+    public long numEdges() {
+        return numEdges;
+    }
+
+    /**
+     * Number of the first edge of a vertex, for every vertex and one past the last.
+     */
+    public long edgeOffset(int vertex) {
+        return data.getLong(offsetsAt + 8L * vertex);
+    }
+
+    public int edgeTarget(long edge) {
+        return data.getInt(targetsAt + 4 * edge);
+    }
+
+    public LabelDictionary getLabels() {
+        return labels;
+    }
+
+    @Override
+    public Optional<String> labelOfVertex(int vertex) {
+        if (vertex < 0 || vertex >= numVertices) return Optional.empty();
+        return Optional.of(labels.labelOf(vertex));
+    }
+
+    @Override
+    public OptionalInt indexForLabel(String label) {
+        int vertex = labels.indexOf(label);
+        return vertex == NO_SUCH_NODE ? OptionalInt.empty() : OptionalInt.of(vertex);
+    }
+
+    @Override
+    public TIntCollection childrenOfVertex(int vertex, boolean deduplicateEdges) {
+        TIntArrayList children = new TIntArrayList(outDegree(vertex));
+        forEachChild(vertex, children::add);
+        if (deduplicateEdges) return new TIntHashSet(children);
+        else return children;
+    }
+
+    @Override
+    public int outDegree(int vertex) {
+        if (vertex < 0 || vertex >= numVertices) return 0;
+        return Math.toIntExact(edgeOffset(vertex + 1) - edgeOffset(vertex));
+    }
+
+    @Override
+    public boolean forEachChildWhile(int vertex, IntPredicate action) {
+        if (vertex < 0 || vertex >= numVertices) return true;
+        for (long e = edgeOffset(vertex), end = edgeOffset(vertex + 1); e < end; e++) {
+            if (!action.test(edgeTarget(e))) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void forEachChild(int vertex, IntConsumer action) {
+        if (vertex < 0 || vertex >= numVertices) return;
+        for (long e = edgeOffset(vertex), end = edgeOffset(vertex + 1); e < end; e++) {
+            action.accept(edgeTarget(e));
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package adm2e.graph.representations;
+
+import java.util.Arrays;
+
+/**
+ * <p>Renumbers the vertices of a graph so that vertices that are used together are
+ * stored together. Input order scatters the neighbors of a vertex all over the CSR
+ * arrays, so a traversal misses the cache on almost every edge; after reordering,
+ * the children of a vertex and the rows they index sit close by.</p>
+ * <p>Every strategy treats edges as undirected, since a traversal touches both ends.
+ * Labels are renumbered with their vertices, so lookups by label keep working.</p>
+ */
+public final class VertexReordering {
+    public enum Strategy {
+        /** Hubs first, in order of falling degree, so the busiest rows share pages. */
+        DEGREE,
+        /** The order in which a breadth-first search from the biggest hub finds them. */
+        BFS,
+        /**
+         * Reverse Cuthill-McKee: breadth-first from a vertex of least degree, visiting
+         * children in order of rising degree, then reversed. Keeps edges short.
+         */
+        RCM
+    }
+
+    private VertexReordering() { /* utility class */ }
+
+    /**
+     * A copy of the graph in CSR form, renumbered by the given strategy, with the
+     * children of every vertex sorted.
+     */
+    public static CsrGraph reorder(DirectedGraph graph, Strategy strategy) {
+        CsrGraph csr = graph instanceof CsrGraph ? (CsrGraph) graph : CsrGraph.copyOf(graph, false);
+        return csr.relabeled(permutation(csr, strategy), true);
+    }
+
+    /**
+     * The new index of every vertex, as {@link CsrGraph#relabeled(int[], boolean)} takes it.
+     */
+    public static int[] permutation(EdgeIndexedGraph graph, Strategy strategy) {
+        DirectedGraph transpose = graph.transpose();
+        EdgeIndexedGraph reversed = transpose instanceof EdgeIndexedGraph
+            ? (EdgeIndexedGraph) transpose
+            : CsrGraph.copyOf(transpose, false);
+        int[] degree = degrees(graph, reversed);
+        int[] order;
+        switch (strategy) {
+            case DEGREE:
+                order = byDescendingDegree(degree);
+                break;
+            case BFS:
+                order = breadthFirstOrder(graph, reversed, degree, byDescendingDegree(degree), false);
+                break;
+            case RCM:
+                order = breadthFirstOrder(graph, reversed, degree, reverse(byDescendingDegree(degree)), true);
+                reverse(order);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown strategy " + strategy + "!");
+        }
+        int[] newIndexOf = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            newIndexOf[order[i]] = i;
+        }
+        return newIndexOf;
+    }
+
+    // In-degree plus out-degree.
+    private static int[] degrees(EdgeIndexedGraph graph, EdgeIndexedGraph reversed) {
+        int[] degree = new int[graph.numVertices()];
+        for (int v = 0; v < degree.length; v++) {
+            degree[v] = graph.edgeOffset(v + 1) - graph.edgeOffset(v)
+                + reversed.edgeOffset(v + 1) - reversed.edgeOffset(v);
+        }
+        return degree;
+    }
+
+    // A counting sort, which keeps vertices of equal degree in index order.
+    private static int[] byDescendingDegree(int[] degree) {
+        int maxDegree = 0;
+        for (int d : degree) {
+            maxDegree = Math.max(maxDegree, d);
+        }
+        int[] start = new int[maxDegree + 2];
+        for (int d : degree) {
+            start[maxDegree - d + 1]++;
+        }
+        for (int i = 1; i < start.length; i++) {
+            start[i] += start[i - 1];
+        }
+        int[] order = new int[degree.length];
+        for (int v = 0; v < degree.length; v++) {
+            order[start[maxDegree - degree[v]]++] = v;
+        }
+        return order;
+    }
+
+    // Breadth-first over edges in both directions, starting a new search from the
+    // next seed whenever one runs out, until every vertex is placed. The order array
+    // doubles as the queue.
+    private static int[] breadthFirstOrder(EdgeIndexedGraph graph,
+                                           EdgeIndexedGraph reversed,
+                                           int[] degree,
+                                           int[] seeds,
+                                           boolean childrenByDegree) {
+        int numVertices = graph.numVertices();
+        boolean[] placed = new boolean[numVertices];
+        int[] order = new int[numVertices];
+        int head = 0;
+        int tail = 0;
+        for (int seed : seeds) {
+            if (placed[seed]) continue;
+            placed[seed] = true;
+            order[tail++] = seed;
+            while (head < tail) {
+                int v = order[head++];
+                int firstChild = tail;
+                tail = placeNeighbors(graph, v, placed, order, tail);
+                tail = placeNeighbors(reversed, v, placed, order, tail);
+                if (childrenByDegree) sortByDegree(order, firstChild, tail, degree);
+            }
+        }
+        return order;
+    }
+
+    private static int placeNeighbors(EdgeIndexedGraph graph, int vertex, boolean[] placed, int[] order, int tail) {
+        for (int e = graph.edgeOffset(vertex), end = graph.edgeOffset(vertex + 1); e < end; e++) {
+            int neighbor = graph.edgeTarget(e);
+            if (!placed[neighbor]) {
+                placed[neighbor] = true;
+                order[tail++] = neighbor;
+            }
+        }
+        return tail;
+    }
+
+    // Sorts a slice of vertices by rising degree, and then by index.
+    private static void sortByDegree(int[] vertices, int from, int to, int[] degree) {
+        if (to - from < 2) return;
+        long[] keys = new long[to - from];
+        for (int i = from; i < to; i++) {
+            keys[i - from] = ((long) degree[vertices[i]] << 32) | vertices[i];
+        }
+        Arrays.sort(keys);
+        for (int i = from; i < to; i++) {
+            vertices[i] = (int) keys[i - from];
+        }
+    }
+
+    private static int[] reverse(int[] array) {
+        for (int i = 0, j = array.length - 1; i < j; i++, j--) {
+            int swap = array[i];
+            array[i] = array[j];
+            array[j] = swap;
+        }
+        return array;
+    }
+}
@@ -0,0 +1,14 @@
+package adm2e.graph.shortestpaths;
+
+/**
+ * A lower bound on the distance from a vertex to the target of a query, for A*. It
+ * must also be consistent: for every edge u to v, the bound at u is at most the
+ * weight of the edge plus the bound at v. Then every vertex is settled only once.
+ */
+@FunctionalInterface
+public interface DistanceHeuristic {
+    /** The heuristic that knows nothing, which turns A* back into Dijkstra. */
+    DistanceHeuristic NONE = (vertex, target) -> 0.0;
+
+    double lowerBound(int vertex, int target);
+}
@@ -0,0 +1,134 @@
+package adm2e.graph.shortestpaths;
+
+import java.util.Arrays;
+
+/**
+ * <p>A min-priority queue of vertex indexes keyed by doubles, as a d-ary heap in
+ * plain arrays. Each vertex is in the heap at most once, and its key can be lowered
+ * in place, which is what Dijkstra needs instead of inserting duplicates. Nothing is
+ * boxed and nothing is allocated after construction.</p>
+ * <p>A wider heap is shallower, so decreasing a key moves it up fewer levels, at the
+ * price of comparing more children when removing the minimum. Four is a good default.</p>
+ */
+public final class IndexedDaryHeap {
+    private static final int NOT_IN_HEAP = -1;
+
+    private final int arity;
+    private final int[] heap;
+    private final double[] keys;
+    // Position of every vertex in the heap array, or NOT_IN_HEAP.
+    private final int[] positionOf;
+    private int size;
+
+    public IndexedDaryHeap(int numVertices, int arity) {
+        if (arity < 2) throw new IllegalArgumentException("Heap arity must be at least 2!");
+        this.arity = arity;
+        this.heap = new int[numVertices];
+        this.keys = new double[numVertices];
+        this.positionOf = new int[numVertices];
+        Arrays.fill(positionOf, NOT_IN_HEAP);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int vertex) {
+        return positionOf[vertex] != NOT_IN_HEAP;
+    }
+
+    public double keyOf(int vertex) {
+        return keys[vertex];
+    }
+
+    /**
+     * Adds a vertex with the given key, or lowers its key if it is in the heap with
+     * a higher one. Returns whether anything changed.
+     */
+    public boolean insertOrDecrease(int vertex, double key) {
+        int position = positionOf[vertex];
+        if (position == NOT_IN_HEAP) {
+            keys[vertex] = key;
+            heap[size] = vertex;
+            positionOf[vertex] = size;
+            siftUp(size++);
+            return true;
+        }
+        if (key >= keys[vertex]) return false;
+        keys[vertex] = key;
+        siftUp(position);
+        return true;
+    }
+
+    /**
+     * Removes the vertex with the smallest key and returns it. The key stays
+     * readable through {@link #keyOf(int)}.
+     */
+    public int pollMin() {
+        if (size == 0) throw new IllegalStateException("Heap is empty!");
+        int min = heap[0];
+        positionOf[min] = NOT_IN_HEAP;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            positionOf[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    /**
+     * Empties the heap in time proportional to its size, not the number of vertices.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positionOf[heap[i]] = NOT_IN_HEAP;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int position) {
+        int vertex = heap[position];
+        double key = keys[vertex];
+        while (position > 0) {
+            int parentPosition = (position - 1) / arity;
+            int parent = heap[parentPosition];
+            if (keys[parent] <= key) break;
+            heap[position] = parent;
+            positionOf[parent] = position;
+            position = parentPosition;
+        }
+        heap[position] = vertex;
+        positionOf[vertex] = position;
+    }
+
+    private void siftDown(int position) {
+        int vertex = heap[position];
+        double key = keys[vertex];
+        while (true) {
+            int firstChild = position * arity + 1;
+            if (firstChild >= size) break;
+            int lastChild = Math.min(firstChild + arity, size);
+            int minPosition = firstChild;
+            double minKey = keys[heap[firstChild]];
+            for (int c = firstChild + 1; c < lastChild; c++) {
+                double childKey = keys[heap[c]];
+                if (childKey < minKey) {
+                    minKey = childKey;
+                    minPosition = c;
+                }
+            }
+            if (minKey >= key) break;
+            int child = heap[minPosition];
+            heap[position] = child;
+            positionOf[child] = position;
+            position = minPosition;
+        }
+        heap[position] = vertex;
+        positionOf[vertex] = position;
+    }
+}
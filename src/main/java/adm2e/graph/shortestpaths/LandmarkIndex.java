@@ -0,0 +1,313 @@
+package adm2e.graph.shortestpaths;
+
+import adm2e.graph.representations.CsrGraph;
+import adm2e.graph.representations.DirectedGraph;
+import adm2e.graph.representations.EdgeIndexedGraph;
+import adm2e.graph.representations.VertexReordering;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * <p>Distances from and to a few landmark vertices, for the ALT flavor of A*. By the
+ * triangle inequality, for any landmark L the distance from v to t is at least
+ * d(v, L) - d(t, L) and at least d(L, t) - d(L, v), so the best of those over all
+ * landmarks is a consistent {@link DistanceHeuristic}. A well-placed landmark lies
+ * "behind" the target, and then the bound is tight and A* heads straight for it.
+ * The same distances give an upper bound, d(v, L) + d(L, t), as a cheap estimate.</p>
+ * <p>Distances are kept vertex by vertex, k doubles to a vertex in each direction,
+ * so one bound reads two short runs of memory. An index is built once per graph,
+ * with one Dijkstra each way per landmark, and can be saved next to the graph.</p>
+ */
+public final class LandmarkIndex implements DistanceHeuristic {
+    public static final String SUFFIX = ".landmarks";
+
+    private static final int MAGIC = 0x414C_544C; // "ALTL"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 32;
+
+    /**
+     * How landmarks are picked. Farthest-point selection starts from the vertex of
+     * highest degree and then keeps adding the vertex farthest from every landmark
+     * so far, among those they reach, which spreads them around the periphery.
+     * Degree-based selection just takes the hubs, without any searching.
+     */
+    public enum Selection { FARTHEST, HIGHEST_DEGREE }
+
+    private final int numVertices;
+    private final int numEdges;
+    // Of the graph the index was built for; see fingerprint().
+    private final long fingerprint;
+    private final int[] landmarks;
+    // d(L_i, v) at [v * k + i], and d(v, L_i) likewise. Infinite if there is no path.
+    private final double[] fromLandmark;
+    private final double[] toLandmark;
+
+    private LandmarkIndex(int numVertices,
+                          int numEdges,
+                          long fingerprint,
+                          int[] landmarks,
+                          double[] fromLandmark,
+                          double[] toLandmark) {
+        this.numVertices = numVertices;
+        this.numEdges = numEdges;
+        this.fingerprint = fingerprint;
+        this.landmarks = landmarks;
+        this.fromLandmark = fromLandmark;
+        this.toLandmark = toLandmark;
+    }
+
+    /**
+     * Picks up to the given number of landmarks and computes their distances. Edge
+     * weights must be non-negative, as for {@link WeightedShortestPaths}.
+     */
+    public static LandmarkIndex build(DirectedGraph graph, int numLandmarks, Selection selection) {
+        if (numLandmarks < 1) throw new IllegalArgumentException("Need at least one landmark!");
+        EdgeIndexedGraph csr = edgeIndexed(graph);
+        EdgeIndexedGraph reversed = edgeIndexed(csr.transpose());
+        int numVertices = csr.numVertices();
+        int k = Math.min(numLandmarks, numVertices);
+        if ((long) numVertices * k > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Too many landmarks for a graph this size!");
+        WeightedShortestPaths forward = new WeightedShortestPaths(csr);
+        WeightedShortestPaths backward = new WeightedShortestPaths(reversed);
+        int[] byDegree = verticesByDegree(csr, reversed);
+
+        int[] landmarks = new int[k];
+        double[] fromLandmark = new double[numVertices * k];
+        double[] toLandmark = new double[numVertices * k];
+        // Distance from the nearest landmark so far, for farthest-point selection.
+        double[] nearest = new double[numVertices];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        boolean[] chosen = new boolean[numVertices];
+        for (int i = 0; i < k; i++) {
+            int landmark = selection == Selection.HIGHEST_DEGREE || i == 0
+                ? byDegree[i]
+                : farthest(nearest, chosen, byDegree);
+            landmarks[i] = landmark;
+            chosen[landmark] = true;
+            double[] from = forward.distancesFrom(landmark);
+            double[] to = backward.distancesFrom(landmark);
+            for (int v = 0; v < numVertices; v++) {
+                fromLandmark[v * k + i] = from[v];
+                toLandmark[v * k + i] = to[v];
+                nearest[v] = Math.min(nearest[v], from[v]);
+            }
+        }
+        return new LandmarkIndex(numVertices, csr.numEdges(), fingerprint(csr), landmarks, fromLandmark, toLandmark);
+    }
+
+    /**
+     * A hash of the offsets, targets and weights of every edge. Any edit to the input
+     * that changes a distance changes it, and so does numbering the same vertices
+     * differently, which is what the saved distances are indexed by.
+     */
+    public static long fingerprint(EdgeIndexedGraph graph) {
+        int numVertices = graph.numVertices();
+        int numEdges = graph.numEdges();
+        long hash = mix(numVertices, numEdges);
+        for (int v = 0; v <= numVertices; v++) {
+            hash = mix(hash, graph.edgeOffset(v));
+        }
+        for (int e = 0; e < numEdges; e++) {
+            hash = mix(hash, graph.edgeTarget(e));
+            hash = mix(hash, Double.doubleToLongBits(graph.edgeWeight(e)));
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        hash = (hash ^ value) * 0x9E37_79B9_7F4A_7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    private static EdgeIndexedGraph edgeIndexed(DirectedGraph graph) {
+        return graph instanceof EdgeIndexedGraph ? (EdgeIndexedGraph) graph : CsrGraph.copyOf(graph, false);
+    }
+
+    // Hubs first; ties go to the lower vertex.
+    private static int[] verticesByDegree(EdgeIndexedGraph graph, EdgeIndexedGraph reversed) {
+        return IntStream.range(0, graph.numVertices())
+            .boxed()
+            .sorted(Comparator.comparingInt((Integer v) -> -degree(graph, v) - degree(reversed, v)))
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    private static int degree(EdgeIndexedGraph graph, int vertex) {
+        return graph.edgeOffset(vertex + 1) - graph.edgeOffset(vertex);
+    }
+
+    // The vertex reached by some landmark that is farthest from all of them. If the
+    // landmarks reach nothing else, the next hub starts on another part of the graph.
+    private static int farthest(double[] nearest, boolean[] chosen, int[] byDegree) {
+        int best = -1;
+        for (int v = 0; v < nearest.length; v++) {
+            if (!chosen[v] && nearest[v] < Double.POSITIVE_INFINITY && (best < 0 || nearest[v] > nearest[best])) {
+                best = v;
+            }
+        }
+        if (best >= 0) return best;
+        for (int v : byDegree) {
+            if (!chosen[v]) return v;
+        }
+        throw new IllegalStateException("More landmarks than vertices!");
+    }
+
+    public int numLandmarks() {
+        return landmarks.length;
+    }
+
+    public int[] getLandmarks() {
+        return Arrays.copyOf(landmarks, landmarks.length);
+    }
+
+    /**
+     * True if the index was built for this graph, with its vertices numbered the same
+     * way, as far as its {@link #fingerprint} can tell. Reads every edge.
+     */
+    public boolean matches(EdgeIndexedGraph graph) {
+        return graph.numVertices() == numVertices
+            && graph.numEdges() == numEdges
+            && fingerprint(graph) == fingerprint;
+    }
+
+    /**
+     * The best triangle-inequality bound over all landmarks. It is infinite when some
+     * landmark proves that the target cannot be reached from the vertex at all.
+     */
+    @Override
+    public double lowerBound(int vertex, int target) {
+        int k = landmarks.length;
+        int v = vertex * k;
+        int t = target * k;
+        double best = 0.0;
+        for (int i = 0; i < k; i++) {
+            // Terms where both distances are infinite come out NaN, which never wins.
+            double viaTo = toLandmark[v + i] - toLandmark[t + i];
+            double viaFrom = fromLandmark[t + i] - fromLandmark[v + i];
+            if (viaTo > best) best = viaTo;
+            if (viaFrom > best) best = viaFrom;
+        }
+        return best;
+    }
+
+    /**
+     * The shortest detour through a landmark, which is at least the true distance.
+     */
+    public double upperBound(int vertex, int target) {
+        int k = landmarks.length;
+        double best = vertex == target ? 0.0 : Double.POSITIVE_INFINITY;
+        for (int i = 0; i < k; i++) {
+            best = Math.min(best, toLandmark[vertex * k + i] + fromLandmark[target * k + i]);
+        }
+        return best;
+    }
+
+    public static Path indexFileFor(Path graphFile) {
+        Path absolute = graphFile.toAbsolutePath();
+        return absolute.resolveSibling(absolute.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Where to save the index of the graph in the given file after its vertices were
+     * renumbered, such as g.txt.DEGREE.landmarks. Each order gets a file of its own,
+     * since the distances are indexed by vertex number.
+     */
+    public static Path indexFileFor(Path graphFile, VertexReordering.Strategy order) {
+        Path absolute = graphFile.toAbsolutePath();
+        return absolute.resolveSibling(absolute.getFileName() + "." + order.name() + SUFFIX);
+    }
+
+    /**
+     * <p>Writes the index through a temporary file of its own that is renamed into place.
+     * The layout, in little-endian byte order:</p>
+     * <table>
+     *     <tr><td>0</td><td>int</td><td>magic number</td></tr>
+     *     <tr><td>4</td><td>int</td><td>format version</td></tr>
+     *     <tr><td>8</td><td>int</td><td>number of vertices, N</td></tr>
+     *     <tr><td>12</td><td>int</td><td>number of edges</td></tr>
+     *     <tr><td>16</td><td>int</td><td>number of landmarks, K</td></tr>
+     *     <tr><td>20</td><td>int</td><td>unused</td></tr>
+     *     <tr><td>24</td><td>long</td><td>fingerprint of the graph</td></tr>
+     *     <tr><td>32</td><td>int[K]</td><td>landmarks, then padding to 8 bytes</td></tr>
+     *     <tr><td>...</td><td>double[N * K]</td><td>distances from the landmarks</td></tr>
+     *     <tr><td>...</td><td>double[N * K]</td><td>distances to the landmarks</td></tr>
+     * </table>
+     */
+    public void write(Path file) throws IOException {
+        int k = landmarks.length;
+        long distancesOffset = (HEADER_SIZE + 4L * k + 7) & ~7L;
+        long fileSize = distancesOffset + 16L * numVertices * k;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("Landmark index is too large to save!");
+        }
+        Path absolute = file.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(MAGIC)
+                      .putInt(VERSION)
+                      .putInt(numVertices)
+                      .putInt(numEdges)
+                      .putInt(k)
+                      .putInt(0)
+                      .putLong(fingerprint);
+                buffer.asIntBuffer().put(landmarks);
+                buffer.position((int) distancesOffset);
+                DoubleBuffer distances = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+                distances.put(fromLandmark).put(toLandmark);
+                buffer.force();
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public static LandmarkIndex read(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException(file + " is too large to map!");
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < HEADER_SIZE
+            || buffer.getInt(0) != MAGIC
+            || buffer.getInt(4) != VERSION) {
+            throw new IOException(file + " is not a landmark index!");
+        }
+        int numVertices = buffer.getInt(8);
+        int numEdges = buffer.getInt(12);
+        int k = buffer.getInt(16);
+        long fingerprint = buffer.getLong(24);
+        long distancesOffset = (HEADER_SIZE + 4L * k + 7) & ~7L;
+        if (distancesOffset + 16L * numVertices * k != buffer.limit()) {
+            throw new IOException(file + " is truncated!");
+        }
+        int[] landmarks = new int[k];
+        buffer.position(HEADER_SIZE);
+        IntBuffer landmarkBuffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        landmarkBuffer.get(landmarks);
+        double[] fromLandmark = new double[numVertices * k];
+        double[] toLandmark = new double[numVertices * k];
+        buffer.position((int) distancesOffset);
+        DoubleBuffer distances = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        distances.get(fromLandmark).get(toLandmark);
+        return new LandmarkIndex(numVertices, numEdges, fingerprint, landmarks, fromLandmark, toLandmark);
+    }
+}
@@ -0,0 +1,35 @@
+package adm2e.graph.shortestpaths;
+
+import java.util.Arrays;
+
+/**
+ * The vertices of a path from source to target, and its total weight. A path that
+ * does not exist has no vertices and infinite weight.
+ */
+public final class WeightedPath {
+    private static final WeightedPath NONE = new WeightedPath(new int[0], Double.POSITIVE_INFINITY);
+
+    private final int[] vertices;
+    private final double weight;
+
+    WeightedPath(int[] vertices, double weight) {
+        this.vertices = vertices;
+        this.weight = weight;
+    }
+
+    static WeightedPath none() {
+        return NONE;
+    }
+
+    public boolean exists() {
+        return vertices.length > 0;
+    }
+
+    public int[] getVertices() {
+        return Arrays.copyOf(vertices, vertices.length);
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+}
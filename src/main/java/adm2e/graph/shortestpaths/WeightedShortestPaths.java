@@ -0,0 +1,154 @@
+package adm2e.graph.shortestpaths;
+
+import adm2e.graph.representations.CsrGraph;
+import adm2e.graph.representations.DirectedGraph;
+import adm2e.graph.representations.EdgeIndexedGraph;
+
+import java.util.Arrays;
+
+/**
+ * <p>Shortest paths by total edge weight: Dijkstra's algorithm, and A* on top of it
+ * with a pluggable {@link DistanceHeuristic}. Point-to-point queries stop as soon
+ * as the target is settled. Unweighted graphs work too, with every edge weighing 1.</p>
+ * <p>The queue is an {@link IndexedDaryHeap}, and distances live in a double array
+ * indexed by vertex, so the inner loop does not box. Those arrays are kept per thread
+ * and reset by stamping, as in {@link adm2e.graph.traversal.TraversalScratch}, so an
+ * engine can answer queries from several threads, each in time proportional to what
+ * it explores.</p>
+ */
+public final class WeightedShortestPaths {
+    private static final int HEAP_ARITY = 4;
+    private static final int NO_PARENT = -1;
+
+    private final EdgeIndexedGraph graph;
+    private final ThreadLocal<Workspace> workspaces;
+
+    /**
+     * Copies the graph into a {@link CsrGraph} first, unless its edges are indexed
+     * already. Throws if any edge weight is negative or not a number.
+     */
+    public WeightedShortestPaths(DirectedGraph graph) {
+        EdgeIndexedGraph csr = graph instanceof EdgeIndexedGraph
+            ? (EdgeIndexedGraph) graph
+            : CsrGraph.copyOf(graph, false);
+        for (int e = 0; e < csr.numEdges(); e++) {
+            if (!(csr.edgeWeight(e) >= 0))
+                throw new IllegalArgumentException("Shortest paths need non-negative edge weights!");
+        }
+        this.graph = csr;
+        int numVertices = csr.numVertices();
+        this.workspaces = ThreadLocal.withInitial(() -> new Workspace(numVertices));
+    }
+
+    public WeightedPath shortestPath(int source, int target) {
+        return shortestPath(source, target, DistanceHeuristic.NONE);
+    }
+
+    /**
+     * A* from source to target. Vertices are settled in order of their distance from
+     * the source plus the heuristic's bound on the rest of the way. Vertices with an
+     * infinite bound cannot reach the target, so they are never queued.
+     */
+    public WeightedPath shortestPath(int source, int target, DistanceHeuristic heuristic) {
+        int numVertices = graph.numVertices();
+        if (source < 0 || source >= numVertices || target < 0 || target >= numVertices)
+            return WeightedPath.none();
+        Workspace workspace = workspaces.get();
+        workspace.reset();
+        workspace.reach(source, 0.0, NO_PARENT);
+        workspace.heap.insertOrDecrease(source, heuristic.lowerBound(source, target));
+        while (!workspace.heap.isEmpty()) {
+            int vertex = workspace.heap.pollMin();
+            if (vertex == target) return workspace.pathTo(target);
+            double distance = workspace.distance[vertex];
+            for (int e = graph.edgeOffset(vertex), end = graph.edgeOffset(vertex + 1); e < end; e++) {
+                int child = graph.edgeTarget(e);
+                double candidate = distance + graph.edgeWeight(e);
+                if (workspace.improves(child, candidate)) {
+                    double bound = heuristic.lowerBound(child, target);
+                    if (bound == Double.POSITIVE_INFINITY) continue;
+                    workspace.reach(child, candidate, vertex);
+                    workspace.heap.insertOrDecrease(child, candidate + bound);
+                }
+            }
+        }
+        return WeightedPath.none();
+    }
+
+    /**
+     * Dijkstra from the source to everything, exhaustively. Vertices that cannot be
+     * reached are infinitely far.
+     */
+    public double[] distancesFrom(int source) {
+        int numVertices = graph.numVertices();
+        double[] result = new double[numVertices];
+        Arrays.fill(result, Double.POSITIVE_INFINITY);
+        if (source < 0 || source >= numVertices) return result;
+        Workspace workspace = workspaces.get();
+        workspace.reset();
+        workspace.reach(source, 0.0, NO_PARENT);
+        workspace.heap.insertOrDecrease(source, 0.0);
+        while (!workspace.heap.isEmpty()) {
+            int vertex = workspace.heap.pollMin();
+            double distance = workspace.distance[vertex];
+            result[vertex] = distance;
+            for (int e = graph.edgeOffset(vertex), end = graph.edgeOffset(vertex + 1); e < end; e++) {
+                int child = graph.edgeTarget(e);
+                double candidate = distance + graph.edgeWeight(e);
+                if (workspace.improves(child, candidate)) {
+                    workspace.reach(child, candidate, vertex);
+                    workspace.heap.insertOrDecrease(child, candidate);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Tentative distances and parents of one thread's queries. A vertex has been
+    // reached in the current query if its stamp equals the current epoch.
+    private static final class Workspace {
+        private final IndexedDaryHeap heap;
+        private final double[] distance;
+        private final int[] parent;
+        private final int[] stamp;
+        private int epoch;
+
+        Workspace(int numVertices) {
+            this.heap = new IndexedDaryHeap(numVertices, HEAP_ARITY);
+            this.distance = new double[numVertices];
+            this.parent = new int[numVertices];
+            this.stamp = new int[numVertices];
+        }
+
+        void reset() {
+            heap.clear();
+            epoch++;
+            if (epoch == Integer.MAX_VALUE) {
+                Arrays.fill(stamp, 0);
+                epoch = 1;
+            }
+        }
+
+        boolean improves(int vertex, double candidate) {
+            return stamp[vertex] != epoch || candidate < distance[vertex];
+        }
+
+        void reach(int vertex, double newDistance, int newParent) {
+            stamp[vertex] = epoch;
+            distance[vertex] = newDistance;
+            parent[vertex] = newParent;
+        }
+
+        WeightedPath pathTo(int target) {
+            int length = 0;
+            for (int v = target; v != NO_PARENT; v = parent[v]) {
+                length++;
+            }
+            int[] vertices = new int[length];
+            for (int v = target; v != NO_PARENT; v = parent[v]) {
+                vertices[--length] = v;
+            }
+            return new WeightedPath(vertices, distance[target]);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package adm2e.graph.traversal;
+
+import adm2e.graph.representations.DirectedGraph.VisitTracker;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bitset visit tracker that several threads can update at once. Threads racing to
+ * visit the same vertex call {@link #visit(int)}, and exactly one of them wins.
+ */
+public final class AtomicBitSetVisitTracker implements VisitTracker {
+    private final int numVertices;
+    private final AtomicLongArray words;
+
+    public AtomicBitSetVisitTracker(int numVertices) {
+        this.numVertices = numVertices;
+        this.words = new AtomicLongArray((numVertices + 63) >>> 6);
+    }
+
+    @Override
+    public void markVisited(int i) {
+        visit(i);
+    }
+
+    @Override
+    public boolean checkVisited(int i) {
+        if (i >= 0 && i < numVertices) return (words.get(i >>> 6) & (1L << i)) != 0;
+        else return false;
+    }
+
+    /**
+     * Marks a vertex visited with a compare-and-set on its word, and reports whether
+     * this call was the one that did it.
+     */
+    public boolean visit(int i) {
+        if (i < 0 || i >= numVertices) return false;
+        int index = i >>> 6;
+        long bit = 1L << i;
+        long word = words.get(index);
+        while ((word & bit) == 0) {
+            long witness = words.compareAndExchange(index, word, word | bit);
+            if (witness == word) return true;
+            word = witness;
+        }
+        return false;
+    }
+}
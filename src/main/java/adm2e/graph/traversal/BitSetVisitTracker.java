@@ -0,0 +1,54 @@
+package adm2e.graph.traversal;
+
+import adm2e.graph.representations.DirectedGraph.VisitTracker;
+
+import java.util.Arrays;
+
+/**
+ * A visit tracker with one bit per vertex, packed into longs. That is an eighth of
+ * the memory of a boolean array, so the visited set of a large graph stays in cache
+ * much longer. Out-of-range vertices are never visited, and marking them does nothing.
+ */
+public final class BitSetVisitTracker implements VisitTracker {
+    private final int numVertices;
+    private final long[] words;
+
+    public BitSetVisitTracker(int numVertices) {
+        this.numVertices = numVertices;
+        this.words = new long[(numVertices + 63) >>> 6];
+    }
+
+    @Override
+    public void markVisited(int i) {
+        if (i >= 0 && i < numVertices) words[i >>> 6] |= 1L << i;
+    }
+
+    @Override
+    public boolean checkVisited(int i) {
+        if (i >= 0 && i < numVertices) return (words[i >>> 6] & (1L << i)) != 0;
+        else return false;
+    }
+
+    /**
+     * Marks a vertex visited and reports whether it was unvisited before.
+     */
+    public boolean visit(int i) {
+        if (i < 0 || i >= numVertices) return false;
+        long bit = 1L << i;
+        long word = words[i >>> 6];
+        if ((word & bit) != 0) return false;
+        words[i >>> 6] = word | bit;
+        return true;
+    }
+
+    public void unmarkVisited(int i) {
+        if (i >= 0 && i < numVertices) words[i >>> 6] &= ~(1L << i);
+    }
+
+    /**
+     * Forgets every visit.
+     */
+    public void clear() {
+        Arrays.fill(words, 0L);
+    }
+}
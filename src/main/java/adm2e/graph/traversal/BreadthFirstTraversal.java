@@ -3,10 +3,8 @@ package adm2e.graph.traversal;
 import adm2e.graph.representations.DirectedGraph;
 import adm2e.graph.representations.DirectedGraph.EdgeConsumer;
 import adm2e.graph.representations.DirectedGraph.VisitTracker;
-import gnu.trove.TIntCollection;
-import gnu.trove.iterator.TIntIterator;
-import gnu.trove.list.linked.TIntLinkedList;
 
+import java.util.Arrays;
 import java.util.function.IntPredicate;
 
 public final class BreadthFirstTraversal {
@@ -16,7 +14,7 @@ public final class BreadthFirstTraversal {
 
     /**
      * Traverses the graph breadth-first, exhaustively. The edge consumer is called with
-     * every &lt;x, y&gt; edge whenever neither x nor y have been visited yet.
+     * every &lt;x, y&gt; edge that first reaches y, so the edges it sees form a BFS tree.
      */
     public static void traverse(DirectedGraph graph,
                                 EdgeConsumer edgeConsumer) {
@@ -34,12 +32,14 @@ public final class BreadthFirstTraversal {
     public static void traverse(DirectedGraph graph,
                                 EdgeConsumer edgeConsumer,
                                 IntPredicate stoppingCondition) {
-        traverse(
-            graph,
-            0,
-            getDefaultVisitTracker(graph.numVertices()),
-            edgeConsumer,
-            stoppingCondition);
+        try (TraversalScratch visitTracker = TraversalScratch.acquire(graph.numVertices())) {
+            traverse(
+                graph,
+                0,
+                visitTracker,
+                edgeConsumer,
+                stoppingCondition);
+        }
     }
 
     /**
@@ -57,7 +57,8 @@ public final class BreadthFirstTraversal {
                                 IntPredicate stoppingCondition) {
         int numVertices = graph.numVertices();
         if (startingVertex < 0 || startingVertex >= numVertices) return;
-        TIntLinkedList toVisit = new TIntLinkedList();
+        visitTracker.markVisited(startingVertex);
+        IntQueue toVisit = new IntQueue();
         toVisit.add(startingVertex);
         traverse(
             graph,
@@ -69,45 +70,143 @@ public final class BreadthFirstTraversal {
 
     private static void traverse(DirectedGraph graph,
                                  VisitTracker visitTracker,
-                                 TIntLinkedList toVisit,
+                                 IntQueue toVisit,
                                  EdgeConsumer edgeConsumer,
                                  IntPredicate stoppingCondition) {
+        // Vertices are marked when they are first reached rather than when they are
+        // dequeued, so repeated edges and later parents can't enqueue them twice; the
+        // caller has marked the ones already queued. One visitor object serves the
+        // whole traversal, so no per-vertex allocation.
+        int[] currentVertex = new int[1];
+        IntPredicate visitChild = child -> {
+            if (visitTracker.checkVisited(child)) return true;
+            visitTracker.markVisited(child);
+            toVisit.add(child);
+            edgeConsumer.consume(currentVertex[0], child);
+            return !stoppingCondition.test(child);
+        };
         boolean stop = false;
         do {
-            int currentVertex = toVisit.removeAt(0);
-            visitTracker.markVisited(currentVertex);
-            TIntCollection children = graph.childrenOfVertex(currentVertex, true);
-            TIntIterator iterator = children.iterator();
-            for (int i = 0; i < children.size(); i++) {
-                int child = iterator.next();
-                if (!visitTracker.checkVisited(child)) {
-                    toVisit.add(child);
-                    edgeConsumer.consume(currentVertex, child);
-                    if (stoppingCondition.test(child)) {
-                        stop = true;
-                        break;
-                    }
-                }
-            }
+            currentVertex[0] = toVisit.remove();
+            stop = !graph.forEachChildWhile(currentVertex[0], visitChild);
         } while (!toVisit.isEmpty() && !stop);
     }
 
     /**
-     * Default visit tracker starts with every vertex unvisited.
+     * Finds a shortest path between two valid vertices with a bidirectional search,
+     * and returns its vertices from source to target, or an empty array if there is
+     * no path. Builds the transpose of the graph for the backward search, so callers
+     * that run many queries should hold on to one and use the other overload.
      */
-    public static VisitTracker getDefaultVisitTracker(int numVertices) {
-        boolean[] wasVisited = new boolean[numVertices];
-        return new VisitTracker() {
-            @Override
-            public void markVisited(int i) {
-                if (i >= 0 && i < numVertices) wasVisited[i] = true;
+    public static int[] shortestPath(DirectedGraph graph, int source, int target) {
+        return shortestPath(graph, graph.transpose(), source, target);
+    }
+
+    /**
+     * Finds a shortest path between two valid vertices by searching forward from the
+     * source over out-edges and backward from the target over the out-edges of the
+     * transpose, always growing whichever frontier is smaller by one level. The search
+     * ends as soon as either side reaches a vertex the other has seen, which only
+     * explores about 2&middot;b^(d/2) vertices instead of b^d for a one-sided search.
+     */
+    public static int[] shortestPath(DirectedGraph graph, DirectedGraph transpose, int source, int target) {
+        int numVertices = graph.numVertices();
+        if (source < 0 || source >= numVertices || target < 0 || target >= numVertices) return new int[0];
+        if (source == target) return new int[] {source};
+        try (TraversalScratch forwardScratch = TraversalScratch.acquire(numVertices);
+             TraversalScratch backwardScratch = TraversalScratch.acquire(numVertices)) {
+            SearchSide forward = new SearchSide(graph, forwardScratch, source);
+            SearchSide backward = new SearchSide(transpose, backwardScratch, target);
+            int meeting = NO_MEETING;
+            while (meeting == NO_MEETING && forward.frontierSize > 0 && backward.frontierSize > 0) {
+                meeting = forward.frontierSize <= backward.frontierSize
+                    ? forward.expandLevel(backward)
+                    : backward.expandLevel(forward);
+            }
+            if (meeting == NO_MEETING) return new int[0];
+            // Source to meeting point along forward parents, then on to the target.
+            int forwardLength = 0;
+            for (int v = meeting; v != source; v = forwardScratch.parentOf(v)) {
+                forwardLength++;
+            }
+            int backwardLength = 0;
+            for (int v = meeting; v != target; v = backwardScratch.parentOf(v)) {
+                backwardLength++;
             }
+            int[] path = new int[forwardLength + backwardLength + 1];
+            int position = forwardLength;
+            for (int v = meeting; v != source; v = forwardScratch.parentOf(v)) {
+                path[position--] = v;
+            }
+            path[0] = source;
+            position = forwardLength;
+            for (int v = meeting; v != target; v = backwardScratch.parentOf(v)) {
+                path[++position] = backwardScratch.parentOf(v);
+            }
+            return path;
+        }
+    }
+
+    private static final int NO_MEETING = -1;
 
-            @Override
-            public boolean checkVisited(int i) {
-                if (i >= 0 && i < numVertices) return wasVisited[i];
-                else return false;
+    // One half of a bidirectional search: visits and parents in a scratch space, and
+    // the current frontier, which is swapped with the next one after every level. The
+    // frontiers grow as needed, so a search costs time in proportion to what it sees.
+    private static final class SearchSide implements IntPredicate {
+        private final DirectedGraph graph;
+        private final TraversalScratch visited;
+        private int[] frontier;
+        private int frontierSize;
+        private int[] next;
+        private int nextSize;
+        private int currentVertex;
+        private SearchSide other;
+        private int meeting;
+
+        SearchSide(DirectedGraph graph, TraversalScratch visited, int start) {
+            this.graph = graph;
+            this.visited = visited;
+            this.frontier = new int[16];
+            this.next = new int[16];
+            visited.setParent(start, start);
+            frontier[0] = start;
+            frontierSize = 1;
+        }
+
+        // Expands the whole frontier by one level, and returns the first vertex found
+        // that the other side has already visited, if any. All such vertices in one
+        // level lie on shortest paths, so stopping at the first one is safe.
+        int expandLevel(SearchSide other) {
+            this.other = other;
+            meeting = NO_MEETING;
+            nextSize = 0;
+            for (int i = 0; i < frontierSize && meeting == NO_MEETING; i++) {
+                currentVertex = frontier[i];
+                graph.forEachChildWhile(currentVertex, this);
             }
-        };
+            int[] swap = frontier;
+            frontier = next;
+            frontierSize = nextSize;
+            next = swap;
+            return meeting;
+        }
+
+        @Override
+        public boolean test(int child) {
+            if (!visited.visit(child)) return true;
+            visited.setParent(child, currentVertex);
+            if (nextSize == next.length) next = Arrays.copyOf(next, 2 * nextSize);
+            next[nextSize++] = child;
+            if (!other.visited.checkVisited(child)) return true;
+            meeting = child;
+            return false;
+        }
+    }
+
+    /**
+     * Default visit tracker starts with every vertex unvisited.
+     */
+    public static VisitTracker getDefaultVisitTracker(int numVertices) {
+        return new BitSetVisitTracker(numVertices);
     }
 }
@@ -0,0 +1,180 @@
+package adm2e.graph.traversal;
+
+import adm2e.graph.representations.DirectedGraph;
+import adm2e.graph.representations.DirectedGraph.EdgeConsumer;
+
+import java.util.function.IntPredicate;
+
+/**
+ * <p>Breadth-first search that picks a direction for every level, after Beamer,
+ * Asanovi&#263; and Patterson. A top-down step walks the out-edges of the frontier,
+ * like an ordinary BFS. A bottom-up step instead walks the in-edges of every
+ * unvisited vertex until it finds a parent in the frontier, and then stops looking.
+ * Once the frontier holds a large share of the edges, most top-down edge inspections
+ * find vertices that are already visited, and bottom-up steps do far less work.</p>
+ * <p>In-edges come from the transpose of the graph, which is built once per engine,
+ * so an engine should be reused for many traversals of the same graph. Traversals
+ * themselves keep their state on the stack, so one engine can serve several threads.</p>
+ */
+public final class DirectionOptimizingBfs {
+    /** Go bottom-up once the frontier has more than 1/ALPHA of the unexplored edges. */
+    public static final int DEFAULT_ALPHA = 14;
+    /** Go back top-down once the frontier shrinks below 1/BETA of the vertices. */
+    public static final int DEFAULT_BETA = 24;
+
+    private final DirectedGraph graph;
+    private final DirectedGraph transpose;
+    private final int alpha;
+    private final int beta;
+    private final long numEdges;
+
+    public DirectionOptimizingBfs(DirectedGraph graph) {
+        this(graph, graph.transpose(), DEFAULT_ALPHA, DEFAULT_BETA);
+    }
+
+    /**
+     * The transpose must have the same vertex indexes as the graph, with every edge
+     * reversed. The tuning parameters are the ones from the paper.
+     */
+    public DirectionOptimizingBfs(DirectedGraph graph, DirectedGraph transpose, int alpha, int beta) {
+        if (graph.numVertices() != transpose.numVertices())
+            throw new IllegalArgumentException("Transpose has a different number of vertices!");
+        if (alpha <= 0 || beta <= 0)
+            throw new IllegalArgumentException("Alpha and beta must be positive!");
+        this.graph = graph;
+        this.transpose = transpose;
+        this.alpha = alpha;
+        this.beta = beta;
+        long edges = 0;
+        for (int v = 0; v < graph.numVertices(); v++) {
+            edges += graph.outDegree(v);
+        }
+        this.numEdges = edges;
+    }
+
+    /**
+     * Traverses the graph breadth-first from a valid vertex, exhaustively.
+     */
+    public long traverse(int startingVertex, EdgeConsumer edgeConsumer) {
+        return traverse(startingVertex, edgeConsumer, i -> false);
+    }
+
+    /**
+     * Traverses the graph breadth-first from a valid vertex, stopping as soon as a
+     * vertex the stopping condition responds TRUE for is reached. The edge consumer
+     * is called with the edge that first reaches each vertex, so it sees a BFS tree,
+     * though not necessarily the same one {@link BreadthFirstTraversal} would find:
+     * within a bottom-up step vertices are reached in index order. Returns the number
+     * of edges inspected, for comparing the two strategies.
+     */
+    public long traverse(int startingVertex, EdgeConsumer edgeConsumer, IntPredicate stoppingCondition) {
+        int numVertices = graph.numVertices();
+        if (startingVertex < 0 || startingVertex >= numVertices) return 0;
+        return new Run(edgeConsumer, stoppingCondition).from(startingVertex);
+    }
+
+    // The state of one traversal. Frontiers are plain arrays that swap roles at every
+    // level; a vertex enters a frontier once at most, so neither ever overflows.
+    private final class Run implements IntPredicate {
+        private final EdgeConsumer edgeConsumer;
+        private final IntPredicate stoppingCondition;
+        private final BitSetVisitTracker visited = new BitSetVisitTracker(graph.numVertices());
+        private final BitSetVisitTracker inFrontier = new BitSetVisitTracker(graph.numVertices());
+        private int[] frontier = new int[graph.numVertices()];
+        private int frontierSize;
+        private int previousFrontierSize;
+        private int[] next = new int[graph.numVertices()];
+        private int nextSize;
+        // Out-edges of the next frontier, and of the vertices no frontier has held yet.
+        private long nextFrontierEdges;
+        private long unexploredEdges;
+        private long edgesInspected;
+        private int currentVertex;
+        private int foundParent;
+
+        Run(EdgeConsumer edgeConsumer, IntPredicate stoppingCondition) {
+            this.edgeConsumer = edgeConsumer;
+            this.stoppingCondition = stoppingCondition;
+        }
+
+        long from(int startingVertex) {
+            int numVertices = graph.numVertices();
+            visited.markVisited(startingVertex);
+            frontier[0] = startingVertex;
+            frontierSize = 1;
+            long frontierEdges = graph.outDegree(startingVertex);
+            unexploredEdges = numEdges - frontierEdges;
+            boolean topDown = true;
+            boolean stop = false;
+            while (frontierSize > 0 && !stop) {
+                nextSize = 0;
+                nextFrontierEdges = 0;
+                if (topDown && frontierEdges > unexploredEdges / alpha) {
+                    topDown = false;
+                } else if (!topDown
+                    // Bottom-up steps continue while the frontier is still growing, as in the paper.
+                    && frontierSize < previousFrontierSize
+                    && frontierSize < numVertices / beta) {
+                    topDown = true;
+                }
+                stop = topDown ? topDownStep() : bottomUpStep();
+                previousFrontierSize = frontierSize;
+                int[] swap = frontier;
+                frontier = next;
+                frontierSize = nextSize;
+                next = swap;
+                frontierEdges = nextFrontierEdges;
+            }
+            return edgesInspected;
+        }
+
+        private boolean topDownStep() {
+            for (int i = 0; i < frontierSize; i++) {
+                currentVertex = frontier[i];
+                if (!graph.forEachChildWhile(currentVertex, this)) return true;
+            }
+            return false;
+        }
+
+        // Called for every child of the current vertex in a top-down step.
+        @Override
+        public boolean test(int child) {
+            edgesInspected++;
+            if (!visited.visit(child)) return true;
+            return !discovered(currentVertex, child);
+        }
+
+        private boolean bottomUpStep() {
+            for (int i = 0; i < frontierSize; i++) {
+                inFrontier.markVisited(frontier[i]);
+            }
+            IntPredicate lookForParent = parent -> {
+                edgesInspected++;
+                if (!inFrontier.checkVisited(parent)) return true;
+                foundParent = parent;
+                return false;
+            };
+            boolean stop = false;
+            for (int v = 0; v < graph.numVertices() && !stop; v++) {
+                if (visited.checkVisited(v)) continue;
+                if (transpose.forEachChildWhile(v, lookForParent)) continue;
+                visited.markVisited(v);
+                stop = discovered(foundParent, v);
+            }
+            for (int i = 0; i < frontierSize; i++) {
+                inFrontier.unmarkVisited(frontier[i]);
+            }
+            return stop;
+        }
+
+        // Records a newly reached vertex; returns whether the traversal should stop.
+        private boolean discovered(int parent, int child) {
+            int degree = graph.outDegree(child);
+            next[nextSize++] = child;
+            nextFrontierEdges += degree;
+            unexploredEdges -= degree;
+            edgeConsumer.consume(parent, child);
+            return stoppingCondition.test(child);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package adm2e.graph.traversal;
+
+import adm2e.graph.representations.DirectedGraph;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+import java.util.Arrays;
+
+/**
+ * <p>Keeps BFS trees from a fixed set of sources up to date while edges keep arriving,
+ * so that distances, paths and reachability from those sources can be read off at any
+ * time without a fresh traversal. Edges go through {@link #addEdge} instead of
+ * straight to the graph, and are applied to the trees in batches.</p>
+ * <p>Adding edges can only make distances shorter. An edge from u to v matters to a
+ * tree only if it brings v closer to the source than it was; then v, and whatever it
+ * leads to, has to be looked at again, and nothing else does. A batch collects every
+ * vertex that an edge in it brought closer, and runs one breadth-first pass from all
+ * of them together, in order of their new distances, so that every vertex in the
+ * affected region is settled once per batch no matter how many edges reached it.
+ * This is the insertion half of Even and Shiloach's decremental structure; graphs
+ * have no way to remove edges, so the other half is not needed.</p>
+ * <p>Not thread-safe. The graph must only grow through this class once sources are
+ * registered.</p>
+ */
+public final class IncrementalBreadthFirstTrees {
+    public static final int UNREACHABLE = -1;
+    private static final int INFINITE = Integer.MAX_VALUE;
+
+    private final DirectedGraph graph;
+    private final TIntObjectHashMap<Tree> trees = new TIntObjectHashMap<>();
+    // Endpoints of edges added since the last repair.
+    private final TIntArrayList pendingFrom = new TIntArrayList();
+    private final TIntArrayList pendingTo = new TIntArrayList();
+
+    public IncrementalBreadthFirstTrees(DirectedGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Starts keeping a tree from the given vertex, with one full traversal. Does
+     * nothing if there is one already.
+     */
+    public void registerSource(int source) {
+        if (source < 0 || source >= graph.numVertices())
+            throw new IllegalArgumentException("Source " + source + " is not a vertex!");
+        applyPendingEdges();
+        if (trees.containsKey(source)) return;
+        Tree tree = new Tree();
+        tree.ensureCapacity(graph.numVertices());
+        tree.distance[source] = 0;
+        tree.parent[source] = TraversalScratch.NO_PARENT;
+        tree.propagate(graph, new long[] {seed(0, source)});
+        trees.put(source, tree);
+    }
+
+    public void unregisterSource(int source) {
+        trees.remove(source);
+    }
+
+    /**
+     * Adds the edge to the graph now, and to the trees at the next query or
+     * {@link #applyPendingEdges()}, together with the rest of its batch.
+     */
+    public void addEdge(String from, String to, boolean directed) {
+        graph.addEdge(from, to, directed);
+        int keyOfFrom = graph.indexForLabel(from).getAsInt();
+        int keyOfTo = graph.indexForLabel(to).getAsInt();
+        pendingFrom.add(keyOfFrom);
+        pendingTo.add(keyOfTo);
+        if (!directed) {
+            pendingFrom.add(keyOfTo);
+            pendingTo.add(keyOfFrom);
+        }
+    }
+
+    /**
+     * Repairs every tree for the edges added since the last repair, and returns how
+     * many times a distance got shorter, over all trees.
+     */
+    public int applyPendingEdges() {
+        if (pendingFrom.isEmpty()) return 0;
+        int numVertices = graph.numVertices();
+        int[] changed = {0};
+        trees.forEachValue(tree -> {
+            tree.ensureCapacity(numVertices);
+            changed[0] += tree.repair(graph, pendingFrom, pendingTo);
+            return true;
+        });
+        pendingFrom.clear();
+        pendingTo.clear();
+        return changed[0];
+    }
+
+    /**
+     * The number of edges on a shortest path from a registered source to the vertex,
+     * or UNREACHABLE.
+     */
+    public int distance(int source, int vertex) {
+        Tree tree = treeOf(source);
+        if (vertex < 0 || vertex >= tree.size) return UNREACHABLE;
+        int distance = tree.distance[vertex];
+        return distance == INFINITE ? UNREACHABLE : distance;
+    }
+
+    public boolean canReach(int source, int vertex) {
+        return distance(source, vertex) != UNREACHABLE;
+    }
+
+    /**
+     * The vertices of a shortest path from a registered source to the vertex, read
+     * from the tree, or an empty array if there is none.
+     */
+    public int[] shortestPath(int source, int vertex) {
+        int distance = distance(source, vertex);
+        if (distance == UNREACHABLE) return new int[0];
+        Tree tree = treeOf(source);
+        int[] path = new int[distance + 1];
+        for (int v = vertex, i = distance; i >= 0; v = tree.parent[v], i--) {
+            path[i] = v;
+        }
+        return path;
+    }
+
+    private Tree treeOf(int source) {
+        applyPendingEdges();
+        Tree tree = trees.get(source);
+        if (tree == null) throw new IllegalArgumentException("Source " + source + " is not registered!");
+        return tree;
+    }
+
+    // A vertex to start propagating from, with its distance in the high bits so that
+    // sorting puts the closest first.
+    private static long seed(int distance, int vertex) {
+        return ((long) distance << 32) | vertex;
+    }
+
+    private static final class Tree {
+        private int[] distance = new int[0];
+        private int[] parent = new int[0];
+        // Vertices the arrays cover; the graph may have more since the last repair.
+        private int size;
+        private final IntQueue queue = new IntQueue();
+
+        void ensureCapacity(int numVertices) {
+            if (numVertices <= size) return;
+            if (numVertices > distance.length) {
+                int capacity = Math.max(numVertices, distance.length + (distance.length >> 1));
+                distance = Arrays.copyOf(distance, capacity);
+                parent = Arrays.copyOf(parent, capacity);
+            }
+            Arrays.fill(distance, size, numVertices, INFINITE);
+            Arrays.fill(parent, size, numVertices, TraversalScratch.NO_PARENT);
+            size = numVertices;
+        }
+
+        int repair(DirectedGraph graph, TIntArrayList from, TIntArrayList to) {
+            TIntArrayList seeds = new TIntArrayList();
+            int changed = 0;
+            for (int i = 0; i < from.size(); i++) {
+                int u = from.getQuick(i);
+                int v = to.getQuick(i);
+                if (distance[u] != INFINITE && distance[u] + 1 < distance[v]) {
+                    distance[v] = distance[u] + 1;
+                    parent[v] = u;
+                    seeds.add(v);
+                    changed++;
+                }
+            }
+            if (seeds.isEmpty()) return 0;
+            long[] sorted = new long[seeds.size()];
+            for (int i = 0; i < sorted.length; i++) {
+                int v = seeds.getQuick(i);
+                sorted[i] = seed(distance[v], v);
+            }
+            return changed + propagate(graph, sorted);
+        }
+
+        // Breadth-first from the seeds, taking them in as the queue's distance reaches
+        // theirs, so that vertices come out in order of distance just as they would
+        // from a single source. Seeds a later edge improved again are skipped.
+        int propagate(DirectedGraph graph, long[] seeds) {
+            Arrays.sort(seeds);
+            queue.clear();
+            int changed = 0;
+            int next = 0;
+            while (next < seeds.length || !queue.isEmpty()) {
+                int vertex;
+                if (queue.isEmpty() || (next < seeds.length
+                    && (int) (seeds[next] >>> 32) <= distance[queue.peek()])) {
+                    long seed = seeds[next++];
+                    vertex = (int) seed;
+                    if (distance[vertex] != (int) (seed >>> 32)) continue;
+                } else {
+                    vertex = queue.remove();
+                }
+                int childDistance = distance[vertex] + 1;
+                int[] improved = {0};
+                graph.forEachChild(vertex, child -> {
+                    if (childDistance < distance[child]) {
+                        distance[child] = childDistance;
+                        parent[child] = vertex;
+                        queue.add(child);
+                        improved[0]++;
+                    }
+                });
+                changed += improved[0];
+            }
+            return changed;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package adm2e.graph.traversal;
+
+import java.util.Arrays;
+
+/**
+ * A FIFO queue of ints in a circular array that doubles when it fills up. Enqueueing
+ * and dequeueing never allocate once the array is big enough, and consecutive
+ * elements sit next to each other in memory, unlike in a linked list.
+ */
+public final class IntQueue {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // Capacity is always a power of two, so positions wrap around with a mask.
+    private int[] elements;
+    private int head;
+    private int size;
+
+    public IntQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntQueue(int expectedSize) {
+        this.elements = new int[capacityFor(expectedSize)];
+    }
+
+    private static int capacityFor(int expectedSize) {
+        if (expectedSize <= 1) return 1;
+        if (expectedSize > (1 << 30)) throw new IllegalArgumentException("Queue is too large!");
+        return Integer.highestOneBit(expectedSize - 1) << 1;
+    }
+
+    public void add(int element) {
+        if (size == elements.length) grow();
+        elements[(head + size) & (elements.length - 1)] = element;
+        size++;
+    }
+
+    /**
+     * Removes and returns the oldest element. Throws if the queue is empty.
+     */
+    public int remove() {
+        if (size == 0) throw new IllegalStateException("Queue is empty!");
+        int element = elements[head];
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        return element;
+    }
+
+    /**
+     * Returns the oldest element without removing it. Throws if the queue is empty.
+     */
+    public int peek() {
+        if (size == 0) throw new IllegalStateException("Queue is empty!");
+        return elements[head];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Empties the queue but keeps its array for reuse.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    // Unrolls the wrapped-around contents into the front of an array twice as large.
+    private void grow() {
+        int[] larger = new int[capacityFor(elements.length + 1)];
+        int firstPart = Math.min(size, elements.length - head);
+        System.arraycopy(elements, head, larger, 0, firstPart);
+        System.arraycopy(elements, 0, larger, firstPart, size - firstPart);
+        elements = larger;
+        head = 0;
+    }
+
+    @Override
+    public String toString() {
+        int[] contents = new int[size];
+        for (int i = 0; i < size; i++) {
+            contents[i] = elements[(head + i) & (elements.length - 1)];
+        }
+        return Arrays.toString(contents);
+    }
+}
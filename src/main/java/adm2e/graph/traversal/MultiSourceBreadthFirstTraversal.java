@@ -0,0 +1,152 @@
+package adm2e.graph.traversal;
+
+import adm2e.graph.representations.DirectedGraph;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * <p>Breadth-first search from many sources at once, after Then et al.'s MS-BFS.
+ * Sources are taken 64 at a time, and bit i of a vertex's words stands for source i:
+ * whether that search has seen the vertex, and whether the vertex is in its frontier.
+ * Expanding a vertex then advances every search that has it in its frontier with a
+ * few bitwise operations per edge, so the adjacency structure is read once per level
+ * for 64 searches instead of once for each.</p>
+ * <p>Distances are hop counts. Each level only touches the vertices in some frontier,
+ * plus one pass over the seen words per batch of 64 sources.</p>
+ */
+public final class MultiSourceBreadthFirstTraversal {
+    public static final int UNREACHABLE = -1;
+    private static final int BATCH_SIZE = Long.SIZE;
+
+    private MultiSourceBreadthFirstTraversal() { /* static */ }
+
+    /**
+     * Receives a vertex reached from a source, with its distance from that source.
+     */
+    @FunctionalInterface
+    public interface DistanceConsumer {
+        void consume(int source, int vertex, int distance);
+    }
+
+    /**
+     * The distance of every vertex from every source, as one array per source in the
+     * order they were given, with UNREACHABLE for vertices a source never reaches.
+     */
+    public static int[][] distances(DirectedGraph graph, int[] sources) {
+        int[][] result = new int[sources.length][graph.numVertices()];
+        for (int[] row : result) {
+            Arrays.fill(row, UNREACHABLE);
+        }
+        run(graph, sources, Integer.MAX_VALUE, (position, vertex, distance) -> result[position][vertex] = distance);
+        return result;
+    }
+
+    /**
+     * Streams a (source, vertex, distance) triple for every vertex each source reaches,
+     * with sources as vertex indexes. Within each batch of 64 sources, triples come in
+     * order of increasing distance.
+     */
+    public static void traverse(DirectedGraph graph, int[] sources, DistanceConsumer consumer) {
+        traverse(graph, sources, Integer.MAX_VALUE, consumer);
+    }
+
+    /**
+     * Like {@link #traverse(DirectedGraph, int[], DistanceConsumer)}, but only out to
+     * the given number of hops, which is what k-hop neighborhoods need.
+     */
+    public static void traverse(DirectedGraph graph, int[] sources, int maxDistance, DistanceConsumer consumer) {
+        run(graph, sources, maxDistance, (position, vertex, distance) ->
+            consumer.consume(sources[position], vertex, distance));
+    }
+
+    // Reports sources by their position in the array, so duplicates stay apart.
+    private static void run(DirectedGraph graph, int[] sources, int maxDistance, DistanceConsumer reporter) {
+        int numVertices = graph.numVertices();
+        for (int source : sources) {
+            if (source < 0 || source >= numVertices)
+                throw new IllegalArgumentException("Source " + source + " is not a vertex!");
+        }
+        Batch batch = new Batch(graph);
+        for (int base = 0; base < sources.length; base += BATCH_SIZE) {
+            batch.run(sources, base, Math.min(sources.length, base + BATCH_SIZE), maxDistance, reporter);
+        }
+    }
+
+    // The words of one batch of sources, reused by the next batch.
+    private static final class Batch implements IntConsumer {
+        private final DirectedGraph graph;
+        private final long[] seen;
+        private final long[] visit;
+        private final long[] visitNext;
+        private int[] frontier;
+        private int frontierSize;
+        private int[] nextFrontier;
+        private int nextFrontierSize;
+        private long currentVisit;
+
+        Batch(DirectedGraph graph) {
+            int numVertices = graph.numVertices();
+            this.graph = graph;
+            this.seen = new long[numVertices];
+            this.visit = new long[numVertices];
+            this.visitNext = new long[numVertices];
+            this.frontier = new int[numVertices];
+            this.nextFrontier = new int[numVertices];
+        }
+
+        void run(int[] sources, int from, int to, int maxDistance, DistanceConsumer reporter) {
+            Arrays.fill(seen, 0L);
+            frontierSize = 0;
+            for (int i = from; i < to; i++) {
+                int source = sources[i];
+                long bit = 1L << (i - from);
+                if (visit[source] == 0) frontier[frontierSize++] = source;
+                seen[source] |= bit;
+                visit[source] |= bit;
+                reporter.consume(i, source, 0);
+            }
+            for (int distance = 1; frontierSize > 0; distance++) {
+                if (distance > maxDistance) {
+                    for (int k = 0; k < frontierSize; k++) {
+                        visit[frontier[k]] = 0;
+                    }
+                    break;
+                }
+                nextFrontierSize = 0;
+                for (int k = 0; k < frontierSize; k++) {
+                    int vertex = frontier[k];
+                    currentVisit = visit[vertex];
+                    visit[vertex] = 0;
+                    graph.forEachChild(vertex, this);
+                }
+                // Report what each search reached, and make it the next frontier.
+                for (int k = 0; k < nextFrontierSize; k++) {
+                    int vertex = nextFrontier[k];
+                    long reached = visitNext[vertex];
+                    visitNext[vertex] = 0;
+                    visit[vertex] = reached;
+                    while (reached != 0) {
+                        reporter.consume(from + Long.numberOfTrailingZeros(reached), vertex, distance);
+                        reached &= reached - 1;
+                    }
+                }
+                int[] swap = frontier;
+                frontier = nextFrontier;
+                frontierSize = nextFrontierSize;
+                nextFrontier = swap;
+            }
+        }
+
+        // Advances every search that has the current vertex in its frontier to a child
+        // it has not seen yet.
+        @Override
+        public void accept(int child) {
+            long newlySeen = currentVisit & ~seen[child];
+            if (newlySeen == 0) return;
+            if (visitNext[child] == 0) nextFrontier[nextFrontierSize++] = child;
+            visitNext[child] |= newlySeen;
+            seen[child] |= newlySeen;
+        }
+    }
+}
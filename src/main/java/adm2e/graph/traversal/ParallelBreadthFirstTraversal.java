@@ -0,0 +1,139 @@
+package adm2e.graph.traversal;
+
+import adm2e.graph.representations.DirectedGraph;
+import adm2e.graph.representations.DirectedGraph.EdgeConsumer;
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * <p>Level-synchronous breadth-first search on a {@link ForkJoinPool}. Each level of
+ * the frontier is cut into chunks that are expanded in parallel. Threads claim
+ * children with a compare-and-set on an {@link AtomicBitSetVisitTracker}, and only
+ * the winner records the edge, so every vertex gets exactly one parent. Each chunk
+ * collects what it claims in its own buffers, which become the next frontier.</p>
+ * <p>The edge consumer and stopping condition are called on the calling thread, one
+ * level at a time, in frontier order, and so need not be thread safe. The graph is
+ * only read, from several threads at once.</p>
+ */
+public final class ParallelBreadthFirstTraversal {
+    // Frontier vertices per task; smaller levels are not worth splitting further.
+    private static final int CHUNK_SIZE = 1024;
+
+    private ParallelBreadthFirstTraversal() { /* static */ }
+
+    /**
+     * Traverses the graph from a valid vertex on the common pool, exhaustively.
+     */
+    public static void traverse(DirectedGraph graph,
+                                int startingVertex,
+                                EdgeConsumer edgeConsumer) {
+        traverse(graph, startingVertex, ForkJoinPool.commonPool(), edgeConsumer, i -> false);
+    }
+
+    /**
+     * Traverses the graph from a valid vertex on the given pool. The stopping condition
+     * is honoured at level granularity: the level in which some vertex first satisfies
+     * it is expanded in full, but the edge consumer is fed the edges of that level
+     * only up to and including the one that reaches that vertex.
+     */
+    public static void traverse(DirectedGraph graph,
+                                int startingVertex,
+                                ForkJoinPool pool,
+                                EdgeConsumer edgeConsumer,
+                                IntPredicate stoppingCondition) {
+        int numVertices = graph.numVertices();
+        if (startingVertex < 0 || startingVertex >= numVertices) return;
+        AtomicBitSetVisitTracker visited = new AtomicBitSetVisitTracker(numVertices);
+        visited.markVisited(startingVertex);
+        int[] frontier = {startingVertex};
+        while (frontier.length > 0) {
+            int numChunks = (frontier.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            ExpandChunk[] chunks = new ExpandChunk[numChunks];
+            for (int c = 0; c < numChunks; c++) {
+                chunks[c] = new ExpandChunk(graph, visited, frontier, c * CHUNK_SIZE,
+                    Math.min(frontier.length, (c + 1) * CHUNK_SIZE));
+            }
+            pool.invoke(new ExpandLevel(chunks, 0, numChunks));
+            // Hand the level's edges to the consumer, and gather the next frontier.
+            int nextSize = 0;
+            for (ExpandChunk chunk : chunks) {
+                nextSize += chunk.children.size();
+            }
+            int[] next = new int[nextSize];
+            int position = 0;
+            for (ExpandChunk chunk : chunks) {
+                for (int k = 0; k < chunk.children.size(); k++) {
+                    int child = chunk.children.getQuick(k);
+                    edgeConsumer.consume(chunk.parents.getQuick(k), child);
+                    if (stoppingCondition.test(child)) return;
+                    next[position++] = child;
+                }
+            }
+            frontier = next;
+        }
+    }
+
+    // Forks the chunks of one level by halves, so idle workers can steal big pieces.
+    private static final class ExpandLevel extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ExpandChunk[] chunks;
+        private final int from;
+        private final int to;
+
+        ExpandLevel(ExpandChunk[] chunks, int from, int to) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                chunks[from].expand();
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ExpandLevel(chunks, from, middle), new ExpandLevel(chunks, middle, to));
+            }
+        }
+    }
+
+    // Expands a slice of the frontier into buffers of its own.
+    private static final class ExpandChunk implements IntConsumer {
+        private final DirectedGraph graph;
+        private final AtomicBitSetVisitTracker visited;
+        private final int[] frontier;
+        private final int from;
+        private final int to;
+        private final TIntArrayList children = new TIntArrayList();
+        private final TIntArrayList parents = new TIntArrayList();
+        private int currentVertex;
+
+        ExpandChunk(DirectedGraph graph, AtomicBitSetVisitTracker visited, int[] frontier, int from, int to) {
+            this.graph = graph;
+            this.visited = visited;
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+        }
+
+        void expand() {
+            for (int i = from; i < to; i++) {
+                currentVertex = frontier[i];
+                graph.forEachChild(currentVertex, this);
+            }
+        }
+
+        @Override
+        public void accept(int child) {
+            // A plain read first keeps most of the already visited children off the CAS.
+            if (visited.checkVisited(child) || !visited.visit(child)) return;
+            children.add(child);
+            parents.add(currentVertex);
+        }
+    }
+}
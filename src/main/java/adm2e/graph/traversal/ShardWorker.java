@@ -0,0 +1,123 @@
+package adm2e.graph.traversal;
+
+import adm2e.graph.ioutils.GraphSnapshot;
+import adm2e.graph.ioutils.OffHeapGraphFile;
+import adm2e.graph.representations.DirectedGraph;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.set.hash.TIntHashSet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.BitSet;
+
+/**
+ * <p>One shard of a {@link ShardedBreadthFirstTraversal}, run as its own process with
+ * the arguments GRAPH_FILE SHARD NUM_SHARDS PORT. It maps the graph, connects to the
+ * coordinator on the loopback port, and answers steps until told to shut down.</p>
+ * <p>Only the rows of the shard's own vertices are read, and visits are kept for them
+ * alone, so a worker's memory grows with its shard, not with the graph.</p>
+ */
+public final class ShardWorker {
+    private final DirectedGraph graph;
+    private final int firstVertex;
+    private final int endVertex;
+    private final BitSet visited;
+    // Reused from step to step.
+    private final TIntArrayList claimed = new TIntArrayList();
+    private final TIntArrayList candidates = new TIntArrayList();
+    private final TIntHashSet sent = new TIntHashSet();
+
+    private ShardWorker(DirectedGraph graph, int shard, int numShards) {
+        int numVertices = graph.numVertices();
+        this.graph = graph;
+        this.firstVertex = ShardedBreadthFirstTraversal.firstVertexOf(shard, numVertices, numShards);
+        this.endVertex = ShardedBreadthFirstTraversal.firstVertexOf(shard + 1, numVertices, numShards);
+        this.visited = new BitSet(endVertex - firstVertex);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.err.println("Usage: " + ShardWorker.class.getName() + " GRAPH_FILE SHARD NUM_SHARDS PORT");
+            System.exit(1);
+        }
+        Path graphFile = Path.of(args[0]);
+        int shard = Integer.parseInt(args[1]);
+        int numShards = Integer.parseInt(args[2]);
+        int port = Integer.parseInt(args[3]);
+        ShardWorker worker = new ShardWorker(open(graphFile), shard, numShards);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+            output.writeInt(shard);
+            output.writeInt(worker.graph.numVertices());
+            output.flush();
+            worker.serve(input, output);
+        }
+    }
+
+    // Only formats whose vertex numbers are fixed in the file will do, so that every
+    // process sees the same graph.
+    private static DirectedGraph open(Path graphFile) throws IOException {
+        if (GraphSnapshot.isSnapshot(graphFile)) return GraphSnapshot.open(graphFile);
+        if (OffHeapGraphFile.isOffHeapGraph(graphFile)) return OffHeapGraphFile.open(graphFile);
+        throw new IOException(graphFile + " is not a snapshot or an off-heap graph!");
+    }
+
+    private void serve(DataInputStream input, DataOutputStream output) throws IOException {
+        while (true) {
+            int message = input.readInt();
+            switch (message) {
+                case ShardedBreadthFirstTraversal.STEP:
+                    step(input, output);
+                    break;
+                case ShardedBreadthFirstTraversal.RESET:
+                    visited.clear();
+                    break;
+                case ShardedBreadthFirstTraversal.SHUTDOWN:
+                    return;
+                default:
+                    throw new IOException("Unknown message " + message + "!");
+            }
+        }
+    }
+
+    // Claims the unvisited children among the incoming edges, then offers each child
+    // of a newly claimed vertex to its owner once, leaving out the ones this shard
+    // owns and has already seen.
+    private void step(DataInputStream input, DataOutputStream output) throws IOException {
+        claimed.resetQuick();
+        candidates.resetQuick();
+        sent.clear();
+        int numIncoming = input.readInt();
+        for (int i = 0; i < numIncoming; i++) {
+            int parent = input.readInt();
+            int child = input.readInt();
+            if (child < firstVertex || child >= endVertex)
+                throw new IOException("Vertex " + child + " is not in this shard!");
+            if (visited.get(child - firstVertex)) continue;
+            visited.set(child - firstVertex);
+            claimed.add(parent);
+            claimed.add(child);
+        }
+        for (int i = 1; i < claimed.size(); i += 2) {
+            int vertex = claimed.getQuick(i);
+            graph.forEachChild(vertex, child -> {
+                boolean local = child >= firstVertex && child < endVertex;
+                if (local && visited.get(child - firstVertex)) return;
+                if (!sent.add(child)) return;
+                candidates.add(vertex);
+                candidates.add(child);
+            });
+        }
+        ShardedBreadthFirstTraversal.writePairs(output, claimed);
+        ShardedBreadthFirstTraversal.writePairs(output, candidates);
+        output.flush();
+    }
+}
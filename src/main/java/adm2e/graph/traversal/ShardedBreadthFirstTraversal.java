@@ -0,0 +1,252 @@
+package adm2e.graph.traversal;
+
+import adm2e.graph.representations.DirectedGraph.EdgeConsumer;
+import gnu.trove.list.array.TIntArrayList;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+
+/**
+ * <p>Breadth-first search over a graph split among worker processes, each of which
+ * maps the same graph file but only ever reads the rows of the vertices it owns, and
+ * keeps visits for those alone. Vertices are sharded by contiguous ranges of their
+ * numbers, so each worker touches one slice of the file; reordering the graph with
+ * {@link adm2e.graph.representations.VertexReordering} first keeps more edges inside
+ * a shard.</p>
+ * <p>The search runs in bulk-synchronous supersteps, one per level. In each, every
+ * worker receives the candidate edges into its vertices, claims the children it has
+ * not seen, and sends back the claimed edges and the out-edges of the newly claimed
+ * children, at most one per child, as the next candidates. This process coordinates:
+ * it routes candidates to their owners and feeds claimed edges to the consumer. The
+ * workers run {@link ShardWorker} over loopback sockets, and are started by
+ * {@link #launch} with this JVM's class path.</p>
+ * <p>The results are the same as from {@link BreadthFirstTraversal}: every vertex
+ * reached gets exactly one edge, from a vertex one level closer. The edges of a level
+ * come shard by shard, and the stopping condition is honoured at level granularity,
+ * as in {@link ParallelBreadthFirstTraversal}. The graph file must be one that opens
+ * the same way every time, a snapshot or an off-heap graph, so that all processes
+ * agree on the vertex numbers.</p>
+ * <p>Not thread-safe; one traversal at a time.</p>
+ */
+public final class ShardedBreadthFirstTraversal implements Closeable {
+    // Messages from the coordinator. A step is followed by its candidate edges, and
+    // answered with the claimed edges and the next candidates.
+    static final int STEP = 1;
+    static final int RESET = 2;
+    static final int SHUTDOWN = 3;
+    // Parent of the starting vertex, which is claimed but not reported.
+    static final int NO_PARENT = -1;
+    private static final int CONNECT_TIMEOUT_MILLIS = 60_000;
+
+    private final int numVertices;
+    private final List<Process> processes;
+    private final Socket[] sockets;
+    private final DataInputStream[] inputs;
+    private final DataOutputStream[] outputs;
+    // Candidate edges for each shard's next step, as parent, child pairs.
+    private final TIntArrayList[] inboxes;
+
+    private ShardedBreadthFirstTraversal(int numVertices,
+                                         List<Process> processes,
+                                         Socket[] sockets,
+                                         DataInputStream[] inputs,
+                                         DataOutputStream[] outputs) {
+        this.numVertices = numVertices;
+        this.processes = processes;
+        this.sockets = sockets;
+        this.inputs = inputs;
+        this.outputs = outputs;
+        this.inboxes = new TIntArrayList[sockets.length];
+        for (int s = 0; s < sockets.length; s++) {
+            inboxes[s] = new TIntArrayList();
+        }
+    }
+
+    /**
+     * Starts one worker JVM per shard on the given snapshot or off-heap graph file,
+     * and waits for all of them to open it.
+     */
+    public static ShardedBreadthFirstTraversal launch(Path graphFile, int numShards) throws IOException {
+        if (numShards < 1) throw new IllegalArgumentException("There must be at least one shard!");
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<Process> processes = new ArrayList<>();
+        Socket[] sockets = new Socket[numShards];
+        try (ServerSocket server = new ServerSocket(0, numShards, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+            for (int s = 0; s < numShards; s++) {
+                processes.add(new ProcessBuilder(
+                    java,
+                    "-cp", System.getProperty("java.class.path"),
+                    ShardWorker.class.getName(),
+                    graphFile.toAbsolutePath().toString(),
+                    String.valueOf(s),
+                    String.valueOf(numShards),
+                    String.valueOf(server.getLocalPort()))
+                    .inheritIO()
+                    .start());
+            }
+            // Workers connect in whatever order they finish loading, and say who they are.
+            DataInputStream[] inputs = new DataInputStream[numShards];
+            DataOutputStream[] outputs = new DataOutputStream[numShards];
+            int numVertices = -1;
+            for (int i = 0; i < numShards; i++) {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+                int shard = input.readInt();
+                int workerVertices = input.readInt();
+                if (shard < 0 || shard >= numShards || sockets[shard] != null)
+                    throw new IOException("Unexpected worker for shard " + shard + "!");
+                if (numVertices != -1 && workerVertices != numVertices)
+                    throw new IOException("Workers disagree on the number of vertices!");
+                numVertices = workerVertices;
+                sockets[shard] = socket;
+                inputs[shard] = input;
+                outputs[shard] = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+            }
+            return new ShardedBreadthFirstTraversal(numVertices, processes, sockets, inputs, outputs);
+        } catch (IOException | RuntimeException e) {
+            for (Socket socket : sockets) {
+                if (socket != null) socket.close();
+            }
+            processes.forEach(Process::destroyForcibly);
+            throw e;
+        }
+    }
+
+    public int numVertices() {
+        return numVertices;
+    }
+
+    public int numShards() {
+        return sockets.length;
+    }
+
+    /**
+     * Traverses the graph from a valid vertex, exhaustively.
+     */
+    public void traverse(int startingVertex, EdgeConsumer edgeConsumer) {
+        traverse(startingVertex, edgeConsumer, i -> false);
+    }
+
+    /**
+     * Traverses the graph from a valid vertex, feeding the edge consumer every edge
+     * that first reaches a vertex, and stopping after the edge to a vertex the stopping
+     * condition responds TRUE for. Throws an UncheckedIOException if a worker fails.
+     */
+    public void traverse(int startingVertex, EdgeConsumer edgeConsumer, IntPredicate stoppingCondition) {
+        if (startingVertex < 0 || startingVertex >= numVertices) return;
+        try {
+            for (DataOutputStream output : outputs) {
+                output.writeInt(RESET);
+                output.flush();
+            }
+            for (TIntArrayList inbox : inboxes) {
+                inbox.resetQuick();
+            }
+            inboxes[ownerOf(startingVertex, numVertices, numShards())].add(new int[] {NO_PARENT, startingVertex});
+            boolean stop = false;
+            while (!stop && hasCandidates()) {
+                // Every worker gets its whole inbox before any reply is read, so they all
+                // work on the step at once.
+                for (int s = 0; s < numShards(); s++) {
+                    DataOutputStream output = outputs[s];
+                    output.writeInt(STEP);
+                    writePairs(output, inboxes[s]);
+                    output.flush();
+                    inboxes[s].resetQuick();
+                }
+                // Replies are read in full even after the stopping condition fires, so
+                // that the workers are ready for the next traversal.
+                for (int s = 0; s < numShards(); s++) {
+                    DataInputStream input = inputs[s];
+                    int numClaimed = input.readInt();
+                    for (int i = 0; i < numClaimed; i++) {
+                        int parent = input.readInt();
+                        int child = input.readInt();
+                        if (stop || parent == NO_PARENT) continue;
+                        edgeConsumer.consume(parent, child);
+                        stop = stoppingCondition.test(child);
+                    }
+                    int numCandidates = input.readInt();
+                    for (int i = 0; i < numCandidates; i++) {
+                        int parent = input.readInt();
+                        int child = input.readInt();
+                        TIntArrayList inbox = inboxes[ownerOf(child, numVertices, numShards())];
+                        inbox.add(parent);
+                        inbox.add(child);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean hasCandidates() {
+        for (TIntArrayList inbox : inboxes) {
+            if (!inbox.isEmpty()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Asks the workers to exit, and waits a little for them before killing them.
+     */
+    @Override
+    public void close() throws IOException {
+        for (DataOutputStream output : outputs) {
+            try {
+                output.writeInt(SHUTDOWN);
+                output.flush();
+            } catch (IOException e) {
+                // The worker is gone already.
+            }
+        }
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(10, TimeUnit.SECONDS)) process.destroyForcibly();
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The first vertex of a shard, or one past the last vertex for shard numShards.
+     * Shards differ in size by at most one vertex.
+     */
+    static int firstVertexOf(int shard, int numVertices, int numShards) {
+        return (int) ((long) shard * numVertices / numShards);
+    }
+
+    // The shard whose range holds the vertex: the largest s with
+    // floor(s * N / k) <= v, which is ceil((v + 1) * k / N) - 1.
+    static int ownerOf(int vertex, int numVertices, int numShards) {
+        return (int) (((long) (vertex + 1) * numShards + numVertices - 1) / numVertices) - 1;
+    }
+
+    static void writePairs(DataOutputStream output, TIntArrayList pairs) throws IOException {
+        output.writeInt(pairs.size() / 2);
+        for (int i = 0; i < pairs.size(); i++) {
+            output.writeInt(pairs.getQuick(i));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package adm2e.graph.traversal;
+
+import adm2e.graph.representations.DirectedGraph.VisitTracker;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * <p>Visited flags and parent pointers that can be reset in constant time. A vertex
+ * counts as visited if its stamp equals the current epoch, so starting a traversal
+ * over only means bumping the epoch; the arrays are zeroed again only when the epoch
+ * wraps around. A query that visits a small region of a huge graph then costs time
+ * proportional to that region.</p>
+ * <p>Scratch spaces are pooled per thread. Get one with {@link #acquire(int)} in a
+ * try-with-resources block, which hands it back to the pool when the traversal is
+ * done. Several can be held at once, for example one per side of a bidirectional
+ * search.</p>
+ */
+public final class TraversalScratch implements VisitTracker, AutoCloseable {
+    public static final int NO_PARENT = -1;
+    // Spaces kept per thread; more than this are left to the garbage collector.
+    private static final int MAX_POOLED = 4;
+    private static final ThreadLocal<ArrayDeque<TraversalScratch>> POOL =
+        ThreadLocal.withInitial(ArrayDeque::new);
+
+    private final int[] stamps;
+    private final int[] parents;
+    private int epoch;
+    private int numVertices;
+    // True from close() until the next acquire(), so that closing twice can't put
+    // the same space in the pool twice and hand it to two holders at once.
+    private boolean pooled;
+
+    private TraversalScratch(int capacity) {
+        this.stamps = new int[capacity];
+        this.parents = new int[capacity];
+        this.epoch = 0;
+    }
+
+    /**
+     * A scratch space for a graph with the given number of vertices, from this
+     * thread's pool if one there is big enough, with every vertex unvisited.
+     */
+    public static TraversalScratch acquire(int numVertices) {
+        TraversalScratch scratch = POOL.get().pollFirst();
+        // A pooled space that is too small is dropped rather than put back; a thread
+        // that moves on to a bigger graph rarely goes back to a smaller one.
+        if (scratch == null || scratch.stamps.length < numVertices) {
+            scratch = new TraversalScratch(numVertices);
+        }
+        scratch.pooled = false;
+        scratch.numVertices = numVertices;
+        scratch.reset();
+        return scratch;
+    }
+
+    /**
+     * Forgets every visit and parent.
+     */
+    public void reset() {
+        epoch++;
+        if (epoch == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            epoch = 1;
+        }
+    }
+
+    @Override
+    public void markVisited(int i) {
+        if (i >= 0 && i < numVertices) stamps[i] = epoch;
+    }
+
+    @Override
+    public boolean checkVisited(int i) {
+        if (i >= 0 && i < numVertices) return stamps[i] == epoch;
+        else return false;
+    }
+
+    /**
+     * Marks a vertex visited and reports whether it was unvisited before.
+     */
+    public boolean visit(int i) {
+        if (i < 0 || i >= numVertices || stamps[i] == epoch) return false;
+        stamps[i] = epoch;
+        return true;
+    }
+
+    /**
+     * Marks a vertex visited from the given parent.
+     */
+    public void setParent(int i, int parent) {
+        markVisited(i);
+        if (i >= 0 && i < numVertices) parents[i] = parent;
+    }
+
+    /**
+     * The parent recorded for a vertex in this traversal, or NO_PARENT.
+     */
+    public int parentOf(int i) {
+        return checkVisited(i) ? parents[i] : NO_PARENT;
+    }
+
+    /**
+     * Returns this scratch space to the pool of the current thread. Closing it again
+     * does nothing.
+     */
+    @Override
+    public void close() {
+        if (pooled) return;
+        pooled = true;
+        ArrayDeque<TraversalScratch> pool = POOL.get();
+        if (pool.size() < MAX_POOLED) pool.addFirst(this);
+    }
+}
@@ -0,0 +1,47 @@
+package adm2e.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of nanosecond latencies with power-of-two buckets. Bucket
+ * b counts values in [2^(b-1), 2^b), so percentiles are only accurate to within
+ * a factor of two, which is plenty for telling microseconds from milliseconds.
+ */
+public final class LatencyHistogram {
+    private static final int NUM_BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+
+    public void record(long nanos) {
+        int bucket = nanos <= 0 ? 0 : NUM_BUCKETS - Long.numberOfLeadingZeros(nanos);
+        buckets.getAndIncrement(Math.min(bucket, NUM_BUCKETS - 1));
+    }
+
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * The upper bound of the bucket containing the given percentile (0 < p <= 100),
+     * or 0 if nothing was recorded.
+     */
+    public long percentile(double p) {
+        long count = count();
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(count * p / 100.0);
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) return upperBoundOf(i);
+        }
+        return upperBoundOf(NUM_BUCKETS - 1);
+    }
+
+    private static long upperBoundOf(int bucket) {
+        return bucket >= NUM_BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+}
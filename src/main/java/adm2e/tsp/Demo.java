@@ -1,59 +1,145 @@
 package adm2e.tsp;
 
+import adm2e.tsp.instrumentation.SearchMonitor;
+import adm2e.tsp.instrumentation.SearchStatistics;
 import adm2e.tsp.ioutils.DecisionRuleBuilder;
 import adm2e.tsp.ioutils.SettingsForMode;
+import adm2e.tsp.ioutils.TspBinaryCache;
+import adm2e.tsp.ioutils.TspCheckpoint;
 import adm2e.tsp.ioutils.TspCommandLineParser;
+import adm2e.tsp.ioutils.TspIoUtils;
+import adm2e.tsp.representations.DistanceMatrix;
+import adm2e.tsp.representations.TspInstance;
 import adm2e.tsp.representations.TspSolution;
 import adm2e.tsp.rules.DecisionRule;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
-import java.util.stream.Stream;
-
-import static adm2e.tsp.ioutils.TspIoUtils.buildEdgeWeightMatrix;
-import static adm2e.tsp.ioutils.TspIoUtils.processLines;
-import static adm2e.tsp.ioutils.TspIoUtils.readRawInput;
 
 public class Demo {
 
-    public static void main(String[] args) throws IOException {
+    public static void main(String[] args) throws IOException, InterruptedException {
         // Parse command line.
         SettingsForMode settings = TspCommandLineParser.parse(args);
         if (settings == null) return; // unable to parse command line
         Supplier<DecisionRule> decisionRuleSupplier =
             settings.buildDecisionRuleSupplier(new DecisionRuleBuilder());
         int numTrials = settings.getNumTrials();
+        SearchStatistics stats = new SearchStatistics();
+        SearchMonitor monitor = settings.buildSearchMonitor(stats);
+
+        // Solve every instance in a directory or manifest, one JSON line each.
+        if (settings.getBatchThreads().isPresent()) {
+            TspBatchRunner runner = new TspBatchRunner(
+                decisionRuleSupplier,
+                monitor,
+                numTrials,
+                settings.getSeed().orElseGet(() -> ThreadLocalRandom.current().nextLong()),
+                settings.getUseBinaryCache(),
+                settings.getBatchThreads().getAsInt(),
+                System.out);
+            runner.run(TspBatchRunner.listInstances(settings.getInputFile()));
+            if (settings.getCollectStats()) System.err.println(stats);
+            return;
+        }
 
-        Stream<String> lines = readRawInput(settings.getInputFile());
+        // Parse file input, or map its compiled copy.
+        TspInstance instance = settings.getUseBinaryCache()
+            ? TspBinaryCache.loadOrCompile(settings.getInputFile())
+            : TspIoUtils.loadInstance(settings.getInputFile());
+        String[] labels = instance.getLabels();
+        DistanceMatrix distances = instance.getDistances();
 
-        // Parse file input.
-        Map<String, Map<String, Double>> labelToLabelToDistance = new HashMap<>();
-        Set<String> labelCollector = new HashSet<>();
-        processLines(lines, labelCollector, labelToLabelToDistance);
-        String[] labels = labelCollector.toArray(new String[0]);
-        Arrays.sort(labels);
+        HeuristicTspSolver solver =
+            HeuristicTspSolver.create(labels, distances, decisionRuleSupplier, monitor);
 
-        // Build data structure that the solver uses.
-        double[][] distances = buildEdgeWeightMatrix(labels, labelToLabelToDistance);
+        // Pick up where a previous run left off, if there is a checkpoint for this instance.
+        Optional<Path> checkpointFile = settings.getCheckpointFile();
+        TspCheckpoint resumeFrom = null;
+        if (checkpointFile.isPresent() && Files.exists(checkpointFile.get())) {
+            resumeFrom = TspCheckpoint.read(checkpointFile.get());
+            if (!resumeFrom.matchesInstance(labels)) {
+                throw new RuntimeException(
+                    "Checkpoint " + checkpointFile.get() + " was written for a different instance!");
+            }
+        }
+        long seed = resumeFrom != null
+            ? resumeFrom.getSeed()
+            : settings.getSeed().orElseGet(() -> ThreadLocalRandom.current().nextLong());
+        int firstTrial = resumeFrom != null ? resumeFrom.getTrialsCompleted() : 0;
+        TspSolution bestSolution = resumeFrom != null && resumeFrom.getBestTour().length > 0
+            ? solver.evaluate(resumeFrom.getBestTour())
+            : null;
+        double bestCost = bestSolution != null ? bestSolution.getCost() : Double.MAX_VALUE;
+        // The tour the first trial of this run starts from, instead of a random one.
+        // A trial interrupted halfway resumes from its tour and its rule's state, and
+        // continues exactly as it would have.
+        int[] initialTour = null;
+        long[] initialRuleState = null;
+        if (resumeFrom != null && resumeFrom.getCurrentTour().length > 0) {
+            initialTour = resumeFrom.getCurrentTour();
+            initialRuleState = resumeFrom.getDecisionRuleState();
+        } else if (resumeFrom == null && settings.getWarmStartFile().isPresent()) {
+            initialTour = TspCheckpoint.read(settings.getWarmStartFile().get())
+                .tourForInstance(labels, distances);
+        }
 
         // Initialize and run the solver some number of times.
-        TspSolution bestSolution = null;
-        double bestCost = Double.MAX_VALUE;
-        HeuristicTspSolver solver =
-            HeuristicTspSolver.create(labels, distances, decisionRuleSupplier);
-        for (int i = 0; i < numTrials; i++) {
-            solver = solver.reinitializedCopy();
-            TspSolution solution = solver.getFixedPointSolution();
+        long checkpointIntervalNanos = TimeUnit.SECONDS.toNanos(settings.getCheckpointIntervalSeconds());
+        long lastCheckpointNanos = System.nanoTime();
+        for (int i = firstTrial; i < numTrials; i++) {
+            if (i == firstTrial && initialRuleState != null) {
+                solver = solver.resumedCopy(initialTour, initialRuleState);
+            } else if (i == firstTrial && initialTour != null) {
+                solver = solver.warmStartedCopy(initialTour);
+            } else {
+                solver = solver.reinitializedCopy(HeuristicTspSolver.deriveSeed(seed, i));
+            }
+            TspSolution solution;
+            if (checkpointFile.isPresent()) {
+                solution = solver.getNextSolution();
+                while (!solver.reachedFixedPoint()) {
+                    if (System.nanoTime() - lastCheckpointNanos >= checkpointIntervalNanos) {
+                        writeCheckpoint(checkpointFile.get(), labels, seed, i, bestSolution, solver);
+                        lastCheckpointNanos = System.nanoTime();
+                    }
+                    solution = solver.getNextSolution();
+                }
+            } else {
+                solution = solver.getFixedPointSolution();
+            }
             if (solution.getCost() < bestCost) {
                 bestCost = solution.getCost();
                 bestSolution = solution;
             }
+            if (checkpointFile.isPresent()) {
+                writeCheckpoint(checkpointFile.get(), labels, seed, i + 1, bestSolution, null);
+                lastCheckpointNanos = System.nanoTime();
+            }
         }
         System.out.println(bestSolution);
+        if (settings.getCollectStats()) System.out.println(stats);
+    }
+
+    private static void writeCheckpoint(Path file,
+                                        String[] labels,
+                                        long seed,
+                                        int trialsCompleted,
+                                        TspSolution best,
+                                        HeuristicTspSolver current) throws IOException {
+        int[] none = new int[0];
+        new TspCheckpoint(
+            labels,
+            seed,
+            trialsCompleted,
+            best == null ? none : best.getVertexVisitOrder(),
+            current == null ? none : current.currentTour(),
+            current == null ? new long[0] : current.decisionRuleState())
+            .write(file);
     }
 }
@@ -1,6 +1,10 @@
 package adm2e.tsp;
 
+import adm2e.tsp.instrumentation.SearchMonitor;
+import adm2e.tsp.instrumentation.SearchMonitor.FixedPointReason;
 import adm2e.tsp.rules.DecisionRule;
+import adm2e.tsp.representations.ArrayDistanceMatrix;
+import adm2e.tsp.representations.DistanceMatrix;
 import adm2e.tsp.representations.SolverAction;
 import adm2e.tsp.representations.TspContext;
 import adm2e.tsp.representations.TspSolution;
@@ -14,25 +18,79 @@ import adm2e.tsp.rules.DecisionRule.Decision;
 import static adm2e.tsp.rules.DecisionRule.Decision.ACCEPT;
 
 public final class HeuristicTspSolver {
+    // Spreads consecutive trial numbers over the seed space.
+    private static final long SEED_INCREMENT = 0x9E3779B97F4A7C15L;
 
     private final TspContext context;
     private int[] currentSolution;
     private boolean reachedFixedPoint;
     private final Supplier<DecisionRule> decisionRuleSupplier;
+    private final SearchMonitor monitor;
+    // Read once, so a disabled monitor costs one predictable branch per callback site.
+    private final boolean monitoring;
+    private final SolverScratch scratch;
+    private long iterations;
 
     private HeuristicTspSolver(TspContext context,
-                               Supplier<DecisionRule> decisionRuleSupplier) {
+                               Supplier<DecisionRule> decisionRuleSupplier,
+                               SearchMonitor monitor,
+                               SolverScratch scratch,
+                               int[] initialSolution) {
         this.context = context;
         this.decisionRuleSupplier = decisionRuleSupplier;
-        this.currentSolution = randomPermutation(context);
+        this.monitor = monitor;
+        this.monitoring = monitor.isEnabled();
+        this.scratch = scratch;
+        this.currentSolution = scratch.tour(initialSolution.length);
+        System.arraycopy(initialSolution, 0, currentSolution, 0, initialSolution.length);
         this.reachedFixedPoint = false;
+        this.iterations = 0;
     }
 
     public static HeuristicTspSolver create(String[] labels,
                                             double[][] distances,
                                             Supplier<DecisionRule> decisionRuleSupplier) {
+        return create(labels, distances, decisionRuleSupplier, SearchMonitor.disabled());
+    }
+
+    /**
+     * Creates a solver that reports its progress to the given monitor. The monitor
+     * carries over to reinitialized copies of the solver.
+     */
+    public static HeuristicTspSolver create(String[] labels,
+                                            double[][] distances,
+                                            Supplier<DecisionRule> decisionRuleSupplier,
+                                            SearchMonitor monitor) {
+        return create(labels, ArrayDistanceMatrix.copyOf(distances), decisionRuleSupplier, monitor);
+    }
+
+    /**
+     * Like the other factory methods, but uses the given distance matrix without
+     * copying it. Copies of this solver share it as well.
+     */
+    public static HeuristicTspSolver create(String[] labels,
+                                            DistanceMatrix distances,
+                                            Supplier<DecisionRule> decisionRuleSupplier,
+                                            SearchMonitor monitor) {
+        return create(labels, distances, decisionRuleSupplier, monitor, new SolverScratch());
+    }
+
+    /**
+     * Like the other factory methods, but iterates in the given working arrays,
+     * which may be left over from solving an earlier instance.
+     */
+    public static HeuristicTspSolver create(String[] labels,
+                                            DistanceMatrix distances,
+                                            Supplier<DecisionRule> decisionRuleSupplier,
+                                            SearchMonitor monitor,
+                                            SolverScratch scratch) {
         TspContext context = new TspContext(labels, distances, decisionRuleSupplier.get());
-        return new HeuristicTspSolver(context, decisionRuleSupplier);
+        return new HeuristicTspSolver(
+            context,
+            decisionRuleSupplier,
+            monitor,
+            scratch,
+            randomPermutation(context, ThreadLocalRandom.current()));
     }
 
     /**
@@ -40,10 +98,94 @@ public final class HeuristicTspSolver {
      * different initial solution that probably isn't stuck yet.
      */
     public HeuristicTspSolver reinitializedCopy() {
-        TspContext copyContext = new TspContext(context.getVertexLabels(),
-            context.getVertexDistances(),
+        return reinitializedCopy(ThreadLocalRandom.current());
+    }
+
+    /**
+     * Like {@link #reinitializedCopy()}, but the initial solution and the decision
+     * rule's random choices are determined by the seed, so a trial can be repeated.
+     */
+    public HeuristicTspSolver reinitializedCopy(long seed) {
+        Random random = new Random(seed);
+        HeuristicTspSolver copy = reinitializedCopy(random);
+        copy.context.getDecisionRule().reseed(random.nextLong());
+        return copy;
+    }
+
+    /**
+     * Seed for the i-th of several trials (or instances) that share a base seed.
+     */
+    public static long deriveSeed(long seed, int i) {
+        return seed + i * SEED_INCREMENT;
+    }
+
+    /**
+     * Create a copy of this solver with the same data and heuristic that starts
+     * searching from the given tour, e.g. one saved by an earlier run.
+     */
+    public HeuristicTspSolver warmStartedCopy(int[] initialSolution) {
+        int numVertices = context.getNumVertices();
+        boolean[] seen = new boolean[numVertices];
+        if (initialSolution.length != numVertices) {
+            throw new IllegalArgumentException(
+                "Initial solution must visit each of the " + numVertices + " vertices once.");
+        }
+        for (int vertex : initialSolution) {
+            if (vertex < 0 || vertex >= numVertices || seen[vertex]) {
+                throw new IllegalArgumentException(
+                    "Initial solution must visit each of the " + numVertices + " vertices once.");
+            }
+            seen[vertex] = true;
+        }
+        return new HeuristicTspSolver(
+            freshContext(),
+            decisionRuleSupplier,
+            monitor,
+            scratch,
+            initialSolution);
+    }
+
+    /**
+     * Create a copy of this solver that picks up a search in the middle, from its
+     * current tour and the state of its decision rule, both saved by an earlier run.
+     * It then makes the same moves the earlier search would have made.
+     */
+    public HeuristicTspSolver resumedCopy(int[] currentSolution, long[] decisionRuleState) {
+        HeuristicTspSolver copy = warmStartedCopy(currentSolution);
+        copy.context.getDecisionRule().restore(decisionRuleState);
+        return copy;
+    }
+
+    /**
+     * The tour this solver is at, as it is, for {@link #resumedCopy}. Unlike a
+     * solution's visit order it is not rotated, since the order in which moves are
+     * tried depends on where each vertex is.
+     */
+    public int[] currentTour() {
+        return Arrays.copyOf(currentSolution, context.getNumVertices());
+    }
+
+    /**
+     * The state of this solver's decision rule, for {@link #resumedCopy}.
+     */
+    public long[] decisionRuleState() {
+        return context.getDecisionRule().snapshot();
+    }
+
+    private HeuristicTspSolver reinitializedCopy(Random random) {
+        TspContext copyContext = freshContext();
+        return new HeuristicTspSolver(
+            copyContext,
+            decisionRuleSupplier,
+            monitor,
+            scratch,
+            randomPermutation(copyContext, random));
+    }
+
+    private TspContext freshContext() {
+        return new TspContext(context.getVertexLabels(),
+            context.getDistanceMatrix(),
             decisionRuleSupplier.get());
-        return new HeuristicTspSolver(copyContext, decisionRuleSupplier);
     }
 
     // Initialize search with a random solution -- a more or less
@@ -52,9 +194,8 @@ public final class HeuristicTspSolver {
     // indices, sort the longs, and recover the vertex indices
     // using modulo division.
     // ASSUMPTION: there are N <= 1000 unique vertices in the input.
-    private static int[] randomPermutation(TspContext context) {
+    private static int[] randomPermutation(TspContext context, Random random) {
         int numVertices = context.getNumVertices();
-        Random random = ThreadLocalRandom.current();
         int[] path = new int[numVertices];
         long[] randomizer = new long[numVertices];
         for (int i = 0; i < numVertices; i++) {
@@ -89,6 +230,14 @@ public final class HeuristicTspSolver {
         return new TspSolution(context, currentSolution);
     }
 
+    /**
+     * Wraps an arbitrary tour of this solver's instance, e.g. one loaded from
+     * a checkpoint, as a solution.
+     */
+    public TspSolution evaluate(int[] vertexVisitOrder) {
+        return new TspSolution(context, vertexVisitOrder);
+    }
+
     /**
      * Returns true when this solver gets stuck in a local min and
      * no longer makes progress.
@@ -142,8 +291,10 @@ public final class HeuristicTspSolver {
                                          int i, int j, int k, int m) {
         swap(currentSolution, i, j, k, m);
         double newCost = context.getPathCost(currentSolution);
+        double selectedCost = selectedReachableCost.get();
         Decision decision =
-            context.getDecisionRule().apply(selectedReachableCost.get(), newCost);
+            context.getDecisionRule().apply(selectedCost, newCost);
+        if (monitoring) monitor.moveEvaluated(decision == ACCEPT, newCost < selectedCost);
         if (decision == ACCEPT) {
             selectedReachableCost.set(newCost);
             System.arraycopy(currentSolution, 0, selectedReachableSolution, 0, context.getNumVertices());
@@ -169,17 +320,19 @@ public final class HeuristicTspSolver {
      * The actual heuristic for generating successive solutions.
      */
     private void iterateOnce() {
+        // Do nothing if we're as good as can be.
+        if (reachedFixedPoint) return;
+
         // Check if we should search at all.
         if (context.getDecisionRule().searchBudgetExceeded()) {
-            reachedFixedPoint = true;
+            markFixedPoint(FixedPointReason.BUDGET_EXCEEDED);
+            return;
         }
 
-        // Do nothing if we're as good as can be.
-        if (reachedFixedPoint) return;
-
+        long startNanos = monitoring ? System.nanoTime() : 0L;
         int numVertices = context.getNumVertices();
-        int[] selectedReachableSolution =
-            Arrays.copyOf(currentSolution, currentSolution.length);
+        int[] selectedReachableSolution = scratch.candidate(numVertices);
+        System.arraycopy(currentSolution, 0, selectedReachableSolution, 0, numVertices);
         AtomicReference<Double> selectedReachableCost =
             new AtomicReference<>(context.getPathCost(currentSolution));
 
@@ -207,7 +360,7 @@ public final class HeuristicTspSolver {
             currentCost = context.getPathCost(currentSolution);
             nextCost = selectedReachableCost.get();
             if (context.getDecisionRule().fixedPointDetected(currentCost, nextCost)) {
-                reachedFixedPoint = true;
+                markFixedPoint(FixedPointReason.STABILIZED);
             }
             // If looking one step ahead got us unstuck,
             // take the step from current state to the improved state we found.
@@ -215,5 +368,20 @@ public final class HeuristicTspSolver {
         }
         // If not stuck, take the step from current state to the improved state we found.
         else System.arraycopy(selectedReachableSolution, 0, currentSolution, 0, numVertices);
+
+        iterations++;
+        if (monitoring) {
+            monitor.iterationCompleted(
+                System.nanoTime() - startNanos,
+                context.getPathCost(currentSolution),
+                context.getDecisionRule().currentTemperature());
+        }
+    }
+
+    private void markFixedPoint(FixedPointReason reason) {
+        reachedFixedPoint = true;
+        if (monitoring) {
+            monitor.fixedPointReached(iterations, context.getPathCost(currentSolution), reason);
+        }
     }
 }
@@ -0,0 +1,24 @@
+package adm2e.tsp;
+
+/**
+ * Working arrays for {@link HeuristicTspSolver}, kept apart from the solver so they
+ * can outlive it. A worker that solves many instances one after another can hand
+ * the same scratch to each new solver and only pays for allocation when the number
+ * of vertices changes. A scratch must not be used by two solvers at the same time;
+ * in particular, a solver's copies share its scratch, and the original is no longer
+ * usable once a copy starts iterating.
+ */
+public final class SolverScratch {
+    private int[] tour = new int[0];
+    private int[] candidate = new int[0];
+
+    int[] tour(int numVertices) {
+        if (tour.length != numVertices) tour = new int[numVertices];
+        return tour;
+    }
+
+    int[] candidate(int numVertices) {
+        if (candidate.length != numVertices) candidate = new int[numVertices];
+        return candidate;
+    }
+}
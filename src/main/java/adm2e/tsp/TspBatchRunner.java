@@ -0,0 +1,145 @@
+package adm2e.tsp;
+
+import adm2e.tsp.instrumentation.SearchMonitor;
+import adm2e.tsp.ioutils.TspBinaryCache;
+import adm2e.tsp.ioutils.TspIoUtils;
+import adm2e.tsp.ioutils.TspJson;
+import adm2e.tsp.representations.TspInstance;
+import adm2e.tsp.representations.TspSolution;
+import adm2e.tsp.rules.DecisionRule;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Solves many instances in one JVM, so that startup and JIT warm-up are paid once
+ * rather than per instance. Instances are spread over a fixed pool of workers, each
+ * of which keeps its own {@link SolverScratch} from one instance to the next. Every
+ * result is printed as a line of JSON as soon as it is ready, so the output is in
+ * completion order; the "index" field gives each instance's position in the input.
+ */
+public final class TspBatchRunner {
+    private final Supplier<DecisionRule> decisionRuleSupplier;
+    private final SearchMonitor monitor;
+    private final int numTrials;
+    private final long seed;
+    private final boolean useBinaryCache;
+    private final int numThreads;
+    private final PrintStream out;
+
+    public TspBatchRunner(Supplier<DecisionRule> decisionRuleSupplier,
+                          SearchMonitor monitor,
+                          int numTrials,
+                          long seed,
+                          boolean useBinaryCache,
+                          int numThreads,
+                          PrintStream out) {
+        if (numTrials < 1) throw new IllegalArgumentException("Batches must run at least one trial!");
+        this.decisionRuleSupplier = decisionRuleSupplier;
+        this.monitor = monitor;
+        this.numTrials = numTrials;
+        this.seed = seed;
+        this.useBinaryCache = useBinaryCache;
+        this.numThreads = numThreads;
+        this.out = out;
+    }
+
+    /**
+     * Every regular file in a directory (except compiled caches), in name order, or
+     * every non-empty, non-comment line of a manifest file, resolved relative to
+     * the manifest.
+     */
+    public static List<Path> listInstances(Path directoryOrManifest) throws IOException {
+        if (Files.isDirectory(directoryOrManifest)) {
+            try (Stream<Path> files = Files.list(directoryOrManifest)) {
+                return files
+                    .filter(Files::isRegularFile)
+                    .filter(p -> !p.getFileName().toString().endsWith(TspBinaryCache.SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+            }
+        }
+        Path base = directoryOrManifest.toAbsolutePath().getParent();
+        try (Stream<String> lines = Files.lines(directoryOrManifest)) {
+            return lines
+                .map(String::trim)
+                .filter(s -> !s.isEmpty() && !s.startsWith("#"))
+                .map(base::resolve)
+                .collect(Collectors.toList());
+        }
+    }
+
+    public void run(List<Path> instances) throws InterruptedException {
+        // Biggest first, using file size as a stand-in for the number of vertices.
+        // Long jobs don't get stuck at the end of the queue, and instances of
+        // similar size run back to back, when reusing scratch arrays pays off.
+        List<Integer> order = IntStream.range(0, instances.size())
+            .boxed()
+            .sorted(Comparator.comparingLong((Integer i) -> sizeOf(instances.get(i))).reversed())
+            .collect(Collectors.toList());
+        ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+        ThreadLocal<SolverScratch> scratch = ThreadLocal.withInitial(SolverScratch::new);
+        for (int index : order) {
+            pool.execute(() -> {
+                String result = solve(index, instances.get(index), scratch.get());
+                synchronized (out) {
+                    out.println(result);
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    private String solve(int index, Path path, SolverScratch scratch) {
+        long startNanos = System.nanoTime();
+        StringBuilder json = new StringBuilder()
+            .append("{\"index\":").append(index)
+            .append(",\"instance\":").append(TspJson.quote(path.toString()));
+        // The fields of a result are all rendered before any is appended, so that an
+        // error partway through leaves only the prefix above for the error field.
+        try {
+            TspInstance instance = useBinaryCache
+                ? TspBinaryCache.loadOrCompile(path)
+                : TspIoUtils.loadInstance(path);
+            String[] labels = instance.getLabels();
+            HeuristicTspSolver solver = HeuristicTspSolver.create(
+                labels, instance.getDistances(), decisionRuleSupplier, monitor, scratch);
+            long instanceSeed = HeuristicTspSolver.deriveSeed(seed, index);
+            TspSolution best = null;
+            for (int i = 0; i < numTrials; i++) {
+                solver = solver.reinitializedCopy(HeuristicTspSolver.deriveSeed(instanceSeed, i));
+                TspSolution solution = solver.getFixedPointSolution();
+                if (best == null || solution.getCost() < best.getCost()) best = solution;
+            }
+            String result = ",\"vertices\":" + labels.length
+                + ",\"trials\":" + numTrials
+                + ",\"cost\":" + TspJson.number(best.getCost())
+                + ",\"tour\":" + TspJson.tour(labels, best.getVertexVisitOrder());
+            json.append(result);
+        } catch (IOException | RuntimeException e) {
+            json.append(",\"error\":").append(TspJson.quote(String.valueOf(e.getMessage())));
+        }
+        double millis = (System.nanoTime() - startNanos) / 1e6;
+        return json.append(",\"millis\":").append(TspJson.number(millis)).append('}').toString();
+    }
+
+    private static long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0; // reported when the instance is solved
+        }
+    }
+}
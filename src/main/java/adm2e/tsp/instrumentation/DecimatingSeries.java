@@ -0,0 +1,57 @@
+package adm2e.tsp.instrumentation;
+
+import java.util.Arrays;
+
+/**
+ * A time series of bounded size. Every sample gets a sequence number, but only
+ * every stride-th one is kept. When the buffer fills up, every other kept sample
+ * is dropped and the stride doubles, so the series always spans the whole run
+ * at an evenly decreasing resolution.
+ */
+final class DecimatingSeries {
+    private final long[] sequence;
+    private final double[] values;
+    private int size;
+    private long stride;
+    private long nextSequence;
+
+    DecimatingSeries(int capacity) {
+        if (capacity < 2 || capacity % 2 != 0)
+            throw new IllegalArgumentException("Series capacity must be even and at least 2.");
+        this.sequence = new long[capacity];
+        this.values = new double[capacity];
+        this.size = 0;
+        this.stride = 1;
+        this.nextSequence = 0;
+    }
+
+    synchronized void add(double value) {
+        long seq = nextSequence++;
+        if (seq % stride != 0) return;
+        if (size == sequence.length) {
+            // Keep samples whose sequence number is a multiple of the new stride.
+            stride *= 2;
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (sequence[i] % stride == 0) {
+                    sequence[kept] = sequence[i];
+                    values[kept] = values[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            if (seq % stride != 0) return;
+        }
+        sequence[size] = seq;
+        values[size] = value;
+        size++;
+    }
+
+    synchronized long[] getSequenceNumbers() {
+        return Arrays.copyOf(sequence, size);
+    }
+
+    synchronized double[] getValues() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,23 @@
+package adm2e.tsp.instrumentation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("adm2e.tsp.FixedPoint")
+@Label("TSP Search Fixed Point")
+@Category({"Menagerie", "TSP"})
+@Description("The heuristic TSP solver stopped iterating.")
+@StackTrace(false)
+final class FixedPointEvent extends jdk.jfr.Event {
+    @Label("Iterations")
+    long iterations;
+
+    @Label("Cost")
+    double cost;
+
+    @Label("Reason")
+    String reason;
+}
@@ -0,0 +1,25 @@
+package adm2e.tsp.instrumentation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("adm2e.tsp.Iteration")
+@Label("TSP Search Iteration")
+@Category({"Menagerie", "TSP"})
+@Description("One iteration of the heuristic TSP solver.")
+@StackTrace(false)
+final class IterationEvent extends jdk.jfr.Event {
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+
+    @Label("Cost")
+    double cost;
+
+    @Label("Temperature")
+    double temperature;
+}
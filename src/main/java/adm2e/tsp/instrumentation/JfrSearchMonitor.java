@@ -0,0 +1,31 @@
+package adm2e.tsp.instrumentation;
+
+/**
+ * A monitor that commits a JFR event for every iteration and every fixed point.
+ * Events only get recorded while a flight recording is running, e.g. when the JVM
+ * is started with {@code -XX:StartFlightRecording=filename=tsp.jfr}. Otherwise,
+ * every callback bails out after a cheap check.
+ */
+public enum JfrSearchMonitor implements SearchMonitor {
+    INSTANCE;
+
+    @Override
+    public void iterationCompleted(long elapsedNanos, double cost, double temperature) {
+        IterationEvent event = new IterationEvent();
+        if (!event.isEnabled()) return;
+        event.elapsed = elapsedNanos;
+        event.cost = cost;
+        event.temperature = temperature;
+        event.commit();
+    }
+
+    @Override
+    public void fixedPointReached(long iterations, double cost, FixedPointReason reason) {
+        FixedPointEvent event = new FixedPointEvent();
+        if (!event.isEnabled()) return;
+        event.iterations = iterations;
+        event.cost = cost;
+        event.reason = reason.name();
+        event.commit();
+    }
+}
@@ -0,0 +1,80 @@
+package adm2e.tsp.instrumentation;
+
+/**
+ * Callbacks from the solver's search loop. Every method is a no-op by default, so
+ * implementations only override what they care about. The solver asks
+ * {@link #isEnabled()} once, when it is constructed, and skips every callback
+ * (including the clock reads that feed them) when the answer is false, so a
+ * disabled monitor costs nothing in the hot loop.
+ */
+public interface SearchMonitor {
+
+    enum FixedPointReason {
+        // The decision rule ran out of search budget (e.g., the system cooled down).
+        BUDGET_EXCEEDED,
+        // The depth-2 search could not find a way out of a local min.
+        STABILIZED,
+    }
+
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * Called for every candidate state the solver looks at. A move is improving
+     * when its cost beats the best candidate seen so far in the same iteration.
+     */
+    default void moveEvaluated(boolean accepted, boolean improving) {}
+
+    /**
+     * Called at the end of every iteration of the solver. Temperature is NaN for
+     * decision rules that don't have one.
+     */
+    default void iterationCompleted(long elapsedNanos, double cost, double temperature) {}
+
+    /**
+     * Called once, when the solver decides that further iteration is fruitless.
+     */
+    default void fixedPointReached(long iterations, double cost, FixedPointReason reason) {}
+
+    /**
+     * A monitor that forwards every callback to this one and then to the other one.
+     */
+    default SearchMonitor and(SearchMonitor other) {
+        if (!other.isEnabled()) return this;
+        if (!this.isEnabled()) return other;
+        SearchMonitor self = this;
+        return new SearchMonitor() {
+            @Override
+            public void moveEvaluated(boolean accepted, boolean improving) {
+                self.moveEvaluated(accepted, improving);
+                other.moveEvaluated(accepted, improving);
+            }
+
+            @Override
+            public void iterationCompleted(long elapsedNanos, double cost, double temperature) {
+                self.iterationCompleted(elapsedNanos, cost, temperature);
+                other.iterationCompleted(elapsedNanos, cost, temperature);
+            }
+
+            @Override
+            public void fixedPointReached(long iterations, double cost, FixedPointReason reason) {
+                self.fixedPointReached(iterations, cost, reason);
+                other.fixedPointReached(iterations, cost, reason);
+            }
+        };
+    }
+
+    static SearchMonitor disabled() {
+        return Disabled.INSTANCE;
+    }
+
+    enum Disabled implements SearchMonitor {
+        INSTANCE;
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package adm2e.tsp.instrumentation;
+
+import adm2e.instrumentation.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monitor that aggregates what the solver does: striped counters of evaluated,
+ * accepted and improving moves, a histogram of iteration latencies, and bounded
+ * time series of cost and temperature. Safe to share between solvers running on
+ * different threads, although the time series only make sense for one solver
+ * (or several run back to back, as the demo does for multiple trials).
+ */
+public final class SearchStatistics implements SearchMonitor {
+    private static final int DEFAULT_SERIES_CAPACITY = 128;
+
+    private final LongAdder movesEvaluated = new LongAdder();
+    private final LongAdder movesAccepted = new LongAdder();
+    private final LongAdder movesImproving = new LongAdder();
+    private final LongAdder iterations = new LongAdder();
+    private final LongAdder fixedPoints = new LongAdder();
+    private final LatencyHistogram iterationLatency = new LatencyHistogram();
+    private final DecimatingSeries costSeries;
+    private final DecimatingSeries temperatureSeries;
+
+    public SearchStatistics() {
+        this(DEFAULT_SERIES_CAPACITY);
+    }
+
+    public SearchStatistics(int seriesCapacity) {
+        this.costSeries = new DecimatingSeries(seriesCapacity);
+        this.temperatureSeries = new DecimatingSeries(seriesCapacity);
+    }
+
+    @Override
+    public void moveEvaluated(boolean accepted, boolean improving) {
+        movesEvaluated.increment();
+        if (accepted) movesAccepted.increment();
+        if (improving) movesImproving.increment();
+    }
+
+    @Override
+    public void iterationCompleted(long elapsedNanos, double cost, double temperature) {
+        iterations.increment();
+        iterationLatency.record(elapsedNanos);
+        costSeries.add(cost);
+        temperatureSeries.add(temperature);
+    }
+
+    @Override
+    public void fixedPointReached(long iterations, double cost, FixedPointReason reason) {
+        fixedPoints.increment();
+    }
+
+    public long getMovesEvaluated() {
+        return movesEvaluated.sum();
+    }
+
+    public long getMovesAccepted() {
+        return movesAccepted.sum();
+    }
+
+    public long getMovesImproving() {
+        return movesImproving.sum();
+    }
+
+    public long getIterations() {
+        return iterations.sum();
+    }
+
+    public LatencyHistogram getIterationLatency() {
+        return iterationLatency;
+    }
+
+    /**
+     * Iteration numbers of the samples in the cost and temperature series.
+     */
+    public long[] getSeriesIterations() {
+        return costSeries.getSequenceNumbers();
+    }
+
+    public double[] getCostSeries() {
+        return costSeries.getValues();
+    }
+
+    public double[] getTemperatureSeries() {
+        return temperatureSeries.getValues();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        long evaluated = getMovesEvaluated();
+        sb.append(String.format("Fixed points: %d. Iterations: %d.%n", fixedPoints.sum(), getIterations()));
+        sb.append(String.format("Moves evaluated: %d, accepted: %d (%.2f%%), improving: %d (%.2f%%).%n",
+            evaluated,
+            getMovesAccepted(), percentOf(getMovesAccepted(), evaluated),
+            getMovesImproving(), percentOf(getMovesImproving(), evaluated)));
+        sb.append(String.format("Iteration latency (ns): p50 <= %d, p90 <= %d, p99 <= %d, max <= %d.%n",
+            iterationLatency.percentile(50),
+            iterationLatency.percentile(90),
+            iterationLatency.percentile(99),
+            iterationLatency.percentile(100)));
+        sb.append(String.format("%12s%24s%24s%n", "ITERATION", "COST", "TEMPERATURE"));
+        long[] seq = getSeriesIterations();
+        double[] costs = getCostSeries();
+        double[] temps = getTemperatureSeries();
+        for (int i = 0; i < Math.min(seq.length, Math.min(costs.length, temps.length)); i++) {
+            sb.append(String.format("%12d%24.6f%24.6g%n", seq[i], costs[i], temps[i]));
+        }
+        return sb.toString();
+    }
+
+    private static double percentOf(long part, long whole) {
+        return whole == 0 ? 0.0 : 100.0 * part / whole;
+    }
+}
@@ -1,35 +1,121 @@
 package adm2e.tsp.ioutils;
 
+import adm2e.tsp.instrumentation.JfrSearchMonitor;
+import adm2e.tsp.instrumentation.SearchMonitor;
+import adm2e.tsp.instrumentation.SearchStatistics;
 import adm2e.tsp.rules.DecisionRule;
 
 import java.nio.file.Path;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
 import java.util.function.Supplier;
 
 // A little hierarchy of POJOs representing parsed command line options
 // for different TSP solver modes.
 public abstract class SettingsForMode {
-    private final int numTrials;
-    private final Path inputFile;
+    private final Common common;
 
-    SettingsForMode(int numTrials, Path inputFile) {
-        this.inputFile = inputFile;
-        this.numTrials = numTrials;
+    SettingsForMode(Common common) {
+        this.common = common;
     }
 
     public abstract Supplier<DecisionRule> buildDecisionRuleSupplier(DecisionRuleBuilder builder);
 
     public int getNumTrials() {
-        return this.numTrials;
+        return common.numTrials;
     }
 
     public Path getInputFile() {
-        return this.inputFile;
+        return common.inputFile;
+    }
+
+    public boolean getCollectStats() {
+        return common.collectStats;
+    }
+
+    public boolean getEmitJfrEvents() {
+        return common.emitJfrEvents;
+    }
+
+    public Optional<Path> getCheckpointFile() {
+        return Optional.ofNullable(common.checkpointFile);
+    }
+
+    public int getCheckpointIntervalSeconds() {
+        return common.checkpointIntervalSeconds;
+    }
+
+    public Optional<Path> getWarmStartFile() {
+        return Optional.ofNullable(common.warmStartFile);
+    }
+
+    public boolean getUseBinaryCache() {
+        return common.useBinaryCache;
+    }
+
+    /**
+     * The number of worker threads in batch mode, or nothing for a single instance.
+     */
+    public OptionalInt getBatchThreads() {
+        return common.batchThreads == null ? OptionalInt.empty() : OptionalInt.of(common.batchThreads);
+    }
+
+    public OptionalLong getSeed() {
+        return common.seed == null ? OptionalLong.empty() : OptionalLong.of(common.seed);
+    }
+
+    /**
+     * The monitor to attach to the solver. When statistics are requested, they
+     * are collected into the given object, which the caller can print afterwards.
+     */
+    public SearchMonitor buildSearchMonitor(SearchStatistics statsCollector) {
+        SearchMonitor monitor = SearchMonitor.disabled();
+        if (common.collectStats) monitor = monitor.and(statsCollector);
+        if (common.emitJfrEvents) monitor = monitor.and(JfrSearchMonitor.INSTANCE);
+        return monitor;
+    }
+
+    // Options that every mode accepts. Nullable fields are options without defaults.
+    static final class Common {
+        private final int numTrials;
+        private final Path inputFile;
+        private final boolean collectStats;
+        private final boolean emitJfrEvents;
+        private final Path checkpointFile;
+        private final int checkpointIntervalSeconds;
+        private final Path warmStartFile;
+        private final Long seed;
+        private final boolean useBinaryCache;
+        private final Integer batchThreads;
+
+        Common(int numTrials,
+               Path inputFile,
+               boolean collectStats,
+               boolean emitJfrEvents,
+               Path checkpointFile,
+               int checkpointIntervalSeconds,
+               Path warmStartFile,
+               Long seed,
+               boolean useBinaryCache,
+               Integer batchThreads) {
+            this.numTrials = numTrials;
+            this.inputFile = inputFile;
+            this.collectStats = collectStats;
+            this.emitJfrEvents = emitJfrEvents;
+            this.checkpointFile = checkpointFile;
+            this.checkpointIntervalSeconds = checkpointIntervalSeconds;
+            this.warmStartFile = warmStartFile;
+            this.seed = seed;
+            this.useBinaryCache = useBinaryCache;
+            this.batchThreads = batchThreads;
+        }
     }
 
     static class Greedy extends SettingsForMode {
 
-        Greedy(int numTrials, Path inputFile) {
-            super(numTrials, inputFile);
+        Greedy(Common common) {
+            super(common);
         }
 
         @Override
@@ -45,13 +131,12 @@ public abstract class SettingsForMode {
         private final double initTemp;
         private final double coolFactor;
 
-        Annealing(int numTrials,
-                  Path inputFile,
+        Annealing(Common common,
                   int reduceTempAfter,
                   int stopAfter,
                   double initTemp,
                   double coolFactor) {
-            super(numTrials, inputFile);
+            super(common);
             this.reduceTempAfter = reduceTempAfter;
             this.stopAfter = stopAfter;
             this.initTemp = initTemp;
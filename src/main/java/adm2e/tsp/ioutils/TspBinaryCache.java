@@ -0,0 +1,194 @@
+package adm2e.tsp.ioutils;
+
+import adm2e.tsp.representations.BufferDistanceMatrix;
+import adm2e.tsp.representations.DistanceMatrix;
+import adm2e.tsp.representations.TspInstance;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * <p>A compiled, binary copy of a TSP input file, kept next to it with a
+ * {@value #SUFFIX} suffix. Parsing the text format means building a map of maps
+ * and then a matrix; the compiled form is memory-mapped instead, and the solver
+ * reads distances directly from the mapped pages.</p>
+ * <p>The layout, in little-endian byte order:</p>
+ * <table>
+ *     <tr><td>0</td><td>int</td><td>magic number</td></tr>
+ *     <tr><td>4</td><td>int</td><td>format version</td></tr>
+ *     <tr><td>8</td><td>int</td><td>number of vertices, N</td></tr>
+ *     <tr><td>12</td><td>int</td><td>length of the label blob in bytes</td></tr>
+ *     <tr><td>16</td><td>long</td><td>size of the source file</td></tr>
+ *     <tr><td>24</td><td>long</td><td>modification time of the source file, in millis</td></tr>
+ *     <tr><td>32</td><td>long</td><td>offset of the distance matrix</td></tr>
+ *     <tr><td>40</td><td>int[N + 1]</td><td>offsets of the sorted labels in the blob</td></tr>
+ *     <tr><td>...</td><td>byte[]</td><td>UTF-8 label blob, then padding to 8 bytes</td></tr>
+ *     <tr><td>...</td><td>double[N * N]</td><td>row-major distance matrix</td></tr>
+ * </table>
+ * <p>The source size and modification time are compared on every load, so an
+ * edited input gets recompiled rather than silently ignored. The compiled copy is
+ * only ever derived from the source, so one that is damaged or from another format
+ * version is recompiled too.</p>
+ */
+public final class TspBinaryCache {
+    public static final String SUFFIX = ".tspbin";
+
+    private static final int MAGIC = 0x5453_5042; // "TSPB"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+
+    private TspBinaryCache() { /* utility class */ }
+
+    public static Path cacheFileFor(Path input) {
+        Path absolute = input.toAbsolutePath();
+        return absolute.resolveSibling(absolute.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Maps the compiled copy of the input if there is an up-to-date one. Otherwise,
+     * parses the text input, compiles it, and maps the freshly written file.
+     */
+    public static TspInstance loadOrCompile(Path input) throws IOException {
+        Path cacheFile = cacheFileFor(input);
+        long sourceSize = Files.size(input);
+        long sourceModified = Files.getLastModifiedTime(input).toMillis();
+        if (Files.exists(cacheFile)) {
+            Optional<TspInstance> cached = map(cacheFile, sourceSize, sourceModified);
+            if (cached.isPresent()) return cached.get();
+        }
+        TspInstance parsed = TspIoUtils.loadInstance(input);
+        write(cacheFile, parsed, sourceSize, sourceModified);
+        return map(cacheFile, sourceSize, sourceModified).orElseThrow(() ->
+            new IOException("Could not read back " + cacheFile + "!"));
+    }
+
+    /**
+     * Maps a compiled instance, or returns nothing if it was compiled from
+     * a different version of the source file, or is not a complete compiled
+     * instance of this format version.
+     */
+    public static Optional<TspInstance> map(Path cacheFile,
+                                            long sourceSize,
+                                            long sourceModified) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed.
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < HEADER_SIZE
+            || buffer.getInt(0) != MAGIC
+            || buffer.getInt(4) != VERSION
+            || buffer.getLong(16) != sourceSize
+            || buffer.getLong(24) != sourceModified) {
+            return Optional.empty();
+        }
+        int numVertices = buffer.getInt(8);
+        int blobLength = buffer.getInt(12);
+        long matrixOffset = buffer.getLong(32);
+        long blobOffset = HEADER_SIZE + 4L * (numVertices + 1);
+        if (numVertices < 0
+            || blobLength < 0
+            || matrixOffset != ((blobOffset + blobLength + 7) & ~7L)
+            || matrixOffset + 8L * numVertices * numVertices != buffer.limit()) {
+            return Optional.empty();
+        }
+        // Label offsets must climb through the blob, or decoding them would fail.
+        for (int i = 0, previous = 0; i <= numVertices; i++) {
+            int offset = buffer.getInt(HEADER_SIZE + 4 * i);
+            if (offset < previous || offset > blobLength || (i == 0 && offset != 0)) return Optional.empty();
+            previous = offset;
+        }
+
+        String[] labels = new String[numVertices];
+        byte[] blob = new byte[blobLength];
+        ByteBuffer blobBytes = buffer.duplicate();
+        blobBytes.position((int) blobOffset);
+        blobBytes.get(blob);
+        for (int i = 0; i < numVertices; i++) {
+            int from = buffer.getInt(HEADER_SIZE + 4 * i);
+            int to = buffer.getInt(HEADER_SIZE + 4 * (i + 1));
+            labels[i] = new String(blob, from, to - from, StandardCharsets.UTF_8);
+        }
+
+        ByteBuffer matrixBytes = buffer.duplicate();
+        matrixBytes.position((int) matrixOffset);
+        DistanceMatrix distances = new BufferDistanceMatrix(
+            numVertices,
+            matrixBytes.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer());
+        return Optional.of(new TspInstance(labels, distances));
+    }
+
+    /**
+     * Writes a compiled instance to a temporary file of its own and renames it into
+     * place, so that concurrent readers never map a half-written file, and concurrent
+     * writers never write into each other's.
+     */
+    public static void write(Path cacheFile,
+                             TspInstance instance,
+                             long sourceSize,
+                             long sourceModified) throws IOException {
+        String[] labels = instance.getLabels();
+        DistanceMatrix distances = instance.getDistances();
+        int numVertices = labels.length;
+        byte[][] encodedLabels = new byte[numVertices][];
+        int blobLength = 0;
+        for (int i = 0; i < numVertices; i++) {
+            encodedLabels[i] = labels[i].getBytes(StandardCharsets.UTF_8);
+            blobLength += encodedLabels[i].length;
+        }
+        long labelsEnd = HEADER_SIZE + 4L * (numVertices + 1) + blobLength;
+        long matrixOffset = (labelsEnd + 7) & ~7L;
+        long fileSize = matrixOffset + 8L * numVertices * numVertices;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("Instance with " + numVertices + " vertices is too large to compile!");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) fileSize).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC)
+              .putInt(VERSION)
+              .putInt(numVertices)
+              .putInt(blobLength)
+              .putLong(sourceSize)
+              .putLong(sourceModified)
+              .putLong(matrixOffset);
+        int labelOffset = 0;
+        buffer.putInt(labelOffset);
+        for (byte[] label : encodedLabels) {
+            labelOffset += label.length;
+            buffer.putInt(labelOffset);
+        }
+        for (byte[] label : encodedLabels) {
+            buffer.put(label);
+        }
+        buffer.position((int) matrixOffset);
+        for (int i = 0; i < numVertices; i++) {
+            for (int j = 0; j < numVertices; j++) {
+                buffer.putDouble(distances.get(i, j));
+            }
+        }
+        buffer.flip();
+
+        Path absolute = cacheFile.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package adm2e.tsp.ioutils;
+
+import adm2e.tsp.representations.DistanceMatrix;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>A snapshot of a multi-trial TSP run: the vertex labels of the instance, the seed
+ * that determines each trial, how many trials have finished, the best tour found so
+ * far, and the trial in progress as its current tour and the state of its decision
+ * rule. Tours are arrays of indexes into the label array. Either tour may be empty;
+ * without a current tour, a run resumes at the start of the next trial.</p>
+ * <p>The binary layout is a magic number and version, the labels, then the numbers,
+ * tours and rule state, in {@link DataOutputStream} encoding.</p>
+ */
+public final class TspCheckpoint {
+    private static final int MAGIC = 0x5453_5043; // "TSPC"
+    private static final short VERSION = 1;
+    // Far more than any rule keeps; a larger length means the file is damaged.
+    private static final int MAX_RULE_STATE_LENGTH = 1024;
+
+    private final String[] labels;
+    private final long seed;
+    private final int trialsCompleted;
+    private final int[] bestTour;
+    private final int[] currentTour;
+    private final long[] decisionRuleState;
+
+    public TspCheckpoint(String[] labels,
+                         long seed,
+                         int trialsCompleted,
+                         int[] bestTour,
+                         int[] currentTour,
+                         long[] decisionRuleState) {
+        this.labels = Arrays.copyOf(labels, labels.length);
+        this.seed = seed;
+        this.trialsCompleted = trialsCompleted;
+        this.bestTour = Arrays.copyOf(bestTour, bestTour.length);
+        this.currentTour = Arrays.copyOf(currentTour, currentTour.length);
+        this.decisionRuleState = Arrays.copyOf(decisionRuleState, decisionRuleState.length);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getTrialsCompleted() {
+        return trialsCompleted;
+    }
+
+    public int[] getBestTour() {
+        return Arrays.copyOf(bestTour, bestTour.length);
+    }
+
+    public int[] getCurrentTour() {
+        return Arrays.copyOf(currentTour, currentTour.length);
+    }
+
+    /**
+     * The decision rule's state at the current tour, for
+     * {@link adm2e.tsp.HeuristicTspSolver#resumedCopy}.
+     */
+    public long[] getDecisionRuleState() {
+        return Arrays.copyOf(decisionRuleState, decisionRuleState.length);
+    }
+
+    /**
+     * True if this checkpoint was written for an instance with exactly these labels,
+     * so that its tours can be used as they are.
+     */
+    public boolean matchesInstance(String[] instanceLabels) {
+        return Arrays.equals(labels, instanceLabels);
+    }
+
+    /**
+     * Translates the best tour in this checkpoint (or the current one, if no trial
+     * finished) into a tour of a possibly different instance. Vertices that are gone
+     * are skipped, and vertices that are new are inserted where they add the least
+     * cost. Good enough as a starting point for the next day's slightly changed input.
+     */
+    public int[] tourForInstance(String[] instanceLabels, DistanceMatrix distances) {
+        int[] savedTour = bestTour.length > 0 ? bestTour : currentTour;
+        Map<String, Integer> indexOfLabel = new HashMap<>();
+        for (int i = 0; i < instanceLabels.length; i++) {
+            indexOfLabel.put(instanceLabels[i], i);
+        }
+        int numVertices = instanceLabels.length;
+        int[] tour = new int[numVertices];
+        boolean[] placed = new boolean[numVertices];
+        int size = 0;
+        for (int savedVertex : savedTour) {
+            Integer vertex = indexOfLabel.get(labels[savedVertex]);
+            if (vertex != null && !placed[vertex]) {
+                tour[size++] = vertex;
+                placed[vertex] = true;
+            }
+        }
+        for (int vertex = 0; vertex < numVertices; vertex++) {
+            if (placed[vertex]) continue;
+            size = cheapestInsertion(tour, size, vertex, distances);
+            placed[vertex] = true;
+        }
+        return tour;
+    }
+
+    // Inserts the vertex into the partial tour of the given size between the pair
+    // of consecutive vertices where the detour is shortest. Returns the new size.
+    private static int cheapestInsertion(int[] tour, int size, int vertex, DistanceMatrix distances) {
+        int bestPosition = size;
+        double bestDetour = Double.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            int from = tour[i];
+            int to = tour[(i + 1) % size];
+            double detour = distances.get(from, vertex) + distances.get(vertex, to) - distances.get(from, to);
+            if (detour < bestDetour) {
+                bestDetour = detour;
+                bestPosition = i + 1;
+            }
+        }
+        System.arraycopy(tour, bestPosition, tour, bestPosition + 1, size - bestPosition);
+        tour[bestPosition] = vertex;
+        return size + 1;
+    }
+
+    /**
+     * Writes to a temporary file next to the target and then renames it, so that a
+     * crash halfway through never leaves a truncated checkpoint behind.
+     */
+    public void write(Path path) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeShort(VERSION);
+                out.writeInt(labels.length);
+                for (String label : labels) {
+                    out.writeUTF(label);
+                }
+                out.writeLong(seed);
+                out.writeInt(trialsCompleted);
+                writeTour(out, bestTour);
+                writeTour(out, currentTour);
+                out.writeInt(decisionRuleState.length);
+                for (long word : decisionRuleState) {
+                    out.writeLong(word);
+                }
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public static TspCheckpoint read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(path + " is not a TSP checkpoint file!");
+            }
+            if (in.readShort() != VERSION) {
+                throw new IOException(path + " is not a TSP checkpoint file!");
+            }
+            int numLabels = in.readInt();
+            // Every label takes at least the two bytes of its length.
+            if (numLabels < 0 || numLabels > Files.size(path) / 2) {
+                throw new IOException("Checkpointed label count is corrupt!");
+            }
+            String[] labels = new String[numLabels];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = in.readUTF();
+            }
+            long seed = in.readLong();
+            int trialsCompleted = in.readInt();
+            int[] bestTour = readTour(in, labels.length);
+            int[] currentTour = readTour(in, labels.length);
+            int stateLength = in.readInt();
+            if (stateLength < 0 || stateLength > MAX_RULE_STATE_LENGTH) {
+                throw new IOException("Checkpointed rule state is corrupt!");
+            }
+            long[] decisionRuleState = new long[stateLength];
+            for (int i = 0; i < decisionRuleState.length; i++) {
+                decisionRuleState[i] = in.readLong();
+            }
+            return new TspCheckpoint(labels, seed, trialsCompleted, bestTour, currentTour, decisionRuleState);
+        }
+    }
+
+    private static void writeTour(DataOutputStream out, int[] tour) throws IOException {
+        out.writeInt(tour.length);
+        for (int vertex : tour) {
+            out.writeInt(vertex);
+        }
+    }
+
+    private static int[] readTour(DataInputStream in, int numLabels) throws IOException {
+        int length = in.readInt();
+        if (length != 0 && length != numLabels) {
+            throw new IOException("Checkpointed tour does not visit every vertex!");
+        }
+        int[] tour = new int[length];
+        for (int i = 0; i < length; i++) {
+            tour[i] = in.readInt();
+            if (tour[i] < 0 || tour[i] >= numLabels) {
+                throw new IOException("Checkpointed tour refers to an unknown vertex!");
+            }
+        }
+        return tour;
+    }
+}
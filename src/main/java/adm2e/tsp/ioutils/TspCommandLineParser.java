@@ -33,6 +33,7 @@ public final class TspCommandLineParser {
     private static final HelpFormatter HELP_FORMATTER = new HelpFormatter();
 
     private static final int DEFAULT_NUM_TRIALS = 1;
+    private static final int DEFAULT_CHECKPOINT_INTERVAL_SECONDS = 60;
 
     private static final Option MODE_OPTION = Option.builder()
         .argName(Arrays.stream(Heuristic.values()).map(Enum::name).collect(Collectors.joining("|")))
@@ -102,6 +103,90 @@ public final class TspCommandLineParser {
         .type(Number.class)
         .build();
 
+    private static final Option STATS_OPTION = Option.builder()
+        .desc("collect search statistics (move counters, iteration latencies, cost and temperature over time)"
+            + " and print them after the solution")
+        .hasArg(false)
+        .longOpt("stats")
+        .required(false)
+        .build();
+
+    private static final Option JFR_EVENTS_OPTION = Option.builder()
+        .desc("emit a JFR event for every iteration and fixed point"
+            + " (only recorded when the JVM runs with -XX:StartFlightRecording)")
+        .hasArg(false)
+        .longOpt("jfr-events")
+        .required(false)
+        .build();
+
+    private static final Option CHECKPOINT_OPTION = Option.builder()
+        .argName("file")
+        .desc("periodically save the best tour and search progress to this file,"
+            + " and resume from it if it already exists")
+        .hasArg(true)
+        .longOpt("checkpoint")
+        .numberOfArgs(1)
+        .required(false)
+        .build();
+
+    private static final Option CHECKPOINT_INTERVAL_OPTION = Option.builder()
+        .argName("seconds")
+        .desc(String.format(
+            "how often to write the checkpoint file (default: %d)",
+            DEFAULT_CHECKPOINT_INTERVAL_SECONDS))
+        .hasArg(true)
+        .longOpt("checkpoint-every")
+        .numberOfArgs(1)
+        .required(false)
+        .type(Number.class)
+        .build();
+
+    private static final Option WARM_START_OPTION = Option.builder()
+        .argName("file")
+        .desc("start the first trial from the best tour in a checkpoint file,"
+            + " possibly written for a slightly different instance")
+        .hasArg(true)
+        .longOpt("warm-start")
+        .numberOfArgs(1)
+        .required(false)
+        .build();
+
+    private static final Option SEED_OPTION = Option.builder()
+        .argName("num")
+        .desc("seed for the initial tours and random choices of the trials (default: random)")
+        .hasArg(true)
+        .longOpt("seed")
+        .numberOfArgs(1)
+        .required(false)
+        .type(Number.class)
+        .build();
+
+    private static final Option BINARY_CACHE_OPTION = Option.builder()
+        .desc("compile the input into a binary file next to it on the first run,"
+            + " and memory-map that instead of parsing the input on later runs")
+        .hasArg(false)
+        .longOpt("binary-cache")
+        .required(false)
+        .build();
+
+    private static final Option BATCH_OPTION = Option.builder()
+        .desc("treat INPUT_FILE as a directory of instances, or a manifest listing one instance per line,"
+            + " and print one line of JSON per solved instance")
+        .hasArg(false)
+        .longOpt("batch")
+        .required(false)
+        .build();
+
+    private static final Option THREADS_OPTION = Option.builder()
+        .argName("num")
+        .desc("the number of worker threads in batch mode (default: number of processors)")
+        .hasArg(true)
+        .longOpt("threads")
+        .numberOfArgs(1)
+        .required(false)
+        .type(Number.class)
+        .build();
+
     private static Options getModeSelectionOptions() {
         Options options = new Options();
         options.addOption(MODE_OPTION);
@@ -115,17 +200,30 @@ public final class TspCommandLineParser {
         options.addOption(ANNEALING_OPTION_STOP_AFTER);
         options.addOption(ANNEALING_MODE_INITIAL_TEMP);
         options.addOption(ANNEALING_MODE_TEMP_REDUCTION_FACTOR);
-        options.addOption(NUM_TRIALS_OPTION);
+        addCommonOptions(options);
         return options;
     }
 
     private static Options getGreedyModeOptions() {
         Options options = new Options();
         options.addOption(MODE_OPTION);
-        options.addOption(NUM_TRIALS_OPTION);
+        addCommonOptions(options);
         return options;
     }
 
+    private static void addCommonOptions(Options options) {
+        options.addOption(NUM_TRIALS_OPTION);
+        options.addOption(STATS_OPTION);
+        options.addOption(JFR_EVENTS_OPTION);
+        options.addOption(CHECKPOINT_OPTION);
+        options.addOption(CHECKPOINT_INTERVAL_OPTION);
+        options.addOption(WARM_START_OPTION);
+        options.addOption(SEED_OPTION);
+        options.addOption(BINARY_CACHE_OPTION);
+        options.addOption(BATCH_OPTION);
+        options.addOption(THREADS_OPTION);
+    }
+
     // Another peculiarity of commons-cli is that validating a numerical option
     // requires setting `type(Number.class)`, rather than Integer.class or whatever.
     // Then, `getParsedOptionValue()` will return either a Long or Double as Object,
@@ -138,9 +236,7 @@ public final class TspCommandLineParser {
                 case GREEDY:
                     try {
                         CommandLine secondPass = DEFAULT_PARSER.parse(getGreedyModeOptions(), args, false);
-                        int numTrials = getAsInt(secondPass, NUM_TRIALS_OPTION, DEFAULT_NUM_TRIALS);
-                        Path inputFile = new File(secondPass.getArgs()[0]).toPath();
-                        return new SettingsForMode.Greedy(numTrials, inputFile);
+                        return new SettingsForMode.Greedy(parseCommon(secondPass));
                     } catch (ParseException | ArrayIndexOutOfBoundsException e) {
                         greedyModeUsage();
                         return null;
@@ -148,10 +244,6 @@ public final class TspCommandLineParser {
                 case ANNEALING:
                     try {
                         CommandLine secondPass = DEFAULT_PARSER.parse(getAnnealingModeOptions(), args, false);
-                        int numTrials = getAsInt(
-                            secondPass,
-                            NUM_TRIALS_OPTION,
-                            DEFAULT_NUM_TRIALS);
                         int reduceTempAfter = getAsInt(
                             secondPass,
                             ANNEALING_OPTION_REDUCE_TEMP_AFTER,
@@ -168,10 +260,9 @@ public final class TspCommandLineParser {
                             secondPass,
                             ANNEALING_MODE_TEMP_REDUCTION_FACTOR,
                             DEFAULT_TEMP_REDUCTION_FACTOR);
-                        Path inputFile = new File(secondPass.getArgs()[0]).toPath();
                         return new SettingsForMode.Annealing(
-                            numTrials, inputFile, reduceTempAfter,
-                            stopAfter, initTemp, coolFactor);
+                            parseCommon(secondPass),
+                            reduceTempAfter, stopAfter, initTemp, coolFactor);
                     } catch (ParseException | ArrayIndexOutOfBoundsException e) {
                         annealingModeUsage();
                         return null;
@@ -183,6 +274,41 @@ public final class TspCommandLineParser {
         return null;
     }
 
+    private static SettingsForMode.Common parseCommon(CommandLine cli) throws ParseException {
+        int numTrials = getAsInt(cli, NUM_TRIALS_OPTION, DEFAULT_NUM_TRIALS);
+        Path inputFile = new File(cli.getArgs()[0]).toPath();
+        int checkpointInterval = getAsInt(
+            cli,
+            CHECKPOINT_INTERVAL_OPTION,
+            DEFAULT_CHECKPOINT_INTERVAL_SECONDS);
+        Integer batchThreads = null;
+        if (cli.hasOption(BATCH_OPTION.getLongOpt())) {
+            if (cli.hasOption(CHECKPOINT_OPTION.getLongOpt()) || cli.hasOption(WARM_START_OPTION.getLongOpt())) {
+                throw new ParseException("Checkpoints and warm starts are not supported in batch mode.");
+            }
+            batchThreads = getAsInt(cli, THREADS_OPTION, Runtime.getRuntime().availableProcessors());
+        }
+        Long seed = cli.hasOption(SEED_OPTION.getLongOpt())
+            ? ((Number) cli.getParsedOptionValue(SEED_OPTION.getLongOpt())).longValue()
+            : null;
+        return new SettingsForMode.Common(
+            numTrials,
+            inputFile,
+            cli.hasOption(STATS_OPTION.getLongOpt()),
+            cli.hasOption(JFR_EVENTS_OPTION.getLongOpt()),
+            getAsPath(cli, CHECKPOINT_OPTION),
+            checkpointInterval,
+            getAsPath(cli, WARM_START_OPTION),
+            seed,
+            cli.hasOption(BINARY_CACHE_OPTION.getLongOpt()),
+            batchThreads);
+    }
+
+    private static Path getAsPath(CommandLine cli, Option option) {
+        String value = cli.getOptionValue(option.getLongOpt());
+        return value == null ? null : new File(value).toPath();
+    }
+
     private static int getAsInt(CommandLine cli, Option option, int defaultValue)
         throws ParseException {
         String flag = option.getOpt() == null ? option.getLongOpt() : option.getOpt();
@@ -217,7 +343,7 @@ public final class TspCommandLineParser {
             + " "
             + Heuristic.GREEDY.name();
         Options tempOptions = new Options();
-        tempOptions.addOption(NUM_TRIALS_OPTION);
+        addCommonOptions(tempOptions);
         HELP_FORMATTER.printHelp(
             120, // width
             command,
@@ -234,11 +360,11 @@ public final class TspCommandLineParser {
             + " "
             + Heuristic.ANNEALING.name();
         Options tempOptions = new Options();
-        tempOptions.addOption(NUM_TRIALS_OPTION);
         tempOptions.addOption(ANNEALING_OPTION_REDUCE_TEMP_AFTER);
         tempOptions.addOption(ANNEALING_OPTION_STOP_AFTER);
         tempOptions.addOption(ANNEALING_MODE_INITIAL_TEMP);
         tempOptions.addOption(ANNEALING_MODE_TEMP_REDUCTION_FACTOR);
+        addCommonOptions(tempOptions);
         HELP_FORMATTER.printHelp(
             120, // width
             command,
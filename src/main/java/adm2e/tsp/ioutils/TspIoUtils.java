@@ -1,9 +1,14 @@
 package adm2e.tsp.ioutils;
 
+import adm2e.tsp.representations.ArrayDistanceMatrix;
+import adm2e.tsp.representations.TspInstance;
+
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
@@ -23,6 +28,28 @@ import java.util.stream.Stream;
 public final class TspIoUtils {
     private TspIoUtils() { /* utility class */ }
 
+    /**
+     * Parses a whole input file into sorted labels and a distance matrix.
+     */
+    public static TspInstance loadInstance(Path path) throws IOException {
+        try (Stream<String> lines = readRawInput(path)) {
+            return parseInstance(lines);
+        }
+    }
+
+    /**
+     * Parses non-empty lines of input into sorted labels and a distance matrix.
+     */
+    public static TspInstance parseInstance(Stream<String> lines) {
+        Map<String, Map<String, Double>> labelToLabelToDistance = new HashMap<>();
+        Set<String> labelCollector = new HashSet<>();
+        processLines(lines, labelCollector, labelToLabelToDistance);
+        String[] labels = labelCollector.toArray(new String[0]);
+        Arrays.sort(labels);
+        double[][] distances = buildEdgeWeightMatrix(labels, labelToLabelToDistance);
+        return new TspInstance(labels, ArrayDistanceMatrix.copyOf(distances));
+    }
+
     /**
      * Streams lines from specified input.
      */
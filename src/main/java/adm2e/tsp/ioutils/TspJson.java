@@ -0,0 +1,47 @@
+package adm2e.tsp.ioutils;
+
+/**
+ * Just enough JSON writing for one-object-per-line output, without pulling in
+ * a JSON library.
+ */
+public final class TspJson {
+    private TspJson() { /* utility class */ }
+
+    public static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * A JSON array of the labels of a tour's vertices, in visiting order.
+     */
+    public static String tour(String[] labels, int[] vertexVisitOrder) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < vertexVisitOrder.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(quote(labels[vertexVisitOrder[i]]));
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * JSON has no NaN or infinity, so those become null.
+     */
+    public static String number(double d) {
+        return Double.isFinite(d) ? Double.toString(d) : "null";
+    }
+}
@@ -0,0 +1,43 @@
+package adm2e.tsp.representations;
+
+/**
+ * A distance matrix in one flat, row-major array on the heap.
+ */
+public final class ArrayDistanceMatrix implements DistanceMatrix {
+    private final int size;
+    private final double[] distances;
+
+    private ArrayDistanceMatrix(int size, double[] distances) {
+        this.size = size;
+        this.distances = distances;
+    }
+
+    /**
+     * Copies the upper triangle of a square matrix and mirrors it, so the
+     * result is symmetric with zeros on the diagonal.
+     */
+    public static ArrayDistanceMatrix copyOf(double[][] matrix) {
+        int size = matrix.length;
+        double[] distances = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            if (matrix[i].length != size) {
+                throw new IllegalArgumentException("Distance matrix must be NxN.");
+            }
+            for (int j = i + 1; j < size; j++) {
+                distances[i * size + j] = matrix[i][j];
+                distances[j * size + i] = matrix[i][j];
+            }
+        }
+        return new ArrayDistanceMatrix(size, distances);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double get(int i, int j) {
+        return distances[i * size + j];
+    }
+}
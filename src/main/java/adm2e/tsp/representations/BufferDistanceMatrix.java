@@ -0,0 +1,32 @@
+package adm2e.tsp.representations;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * A distance matrix read straight out of a buffer of N*N doubles in row-major
+ * order, typically a view of a memory-mapped file. Nothing is copied onto the
+ * heap, and processes that map the same file share its pages.
+ */
+public final class BufferDistanceMatrix implements DistanceMatrix {
+    private final int size;
+    private final DoubleBuffer distances;
+
+    public BufferDistanceMatrix(int size, DoubleBuffer distances) {
+        if ((long) size * size != distances.remaining()) {
+            throw new IllegalArgumentException("Buffer must hold exactly NxN distances.");
+        }
+        this.size = size;
+        this.distances = distances.slice();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double get(int i, int j) {
+        // Absolute gets don't touch the buffer's position, so this is safe to share.
+        return distances.get(i * size + j);
+    }
+}
@@ -0,0 +1,24 @@
+package adm2e.tsp.representations;
+
+/**
+ * Read-only, square, symmetric matrix of distances between N vertices. Solvers
+ * only ever read from it, so one instance can be shared by any number of them.
+ */
+public interface DistanceMatrix {
+    int size();
+    double get(int i, int j);
+
+    /**
+     * A copy of the matrix on the heap, in the shape the text input is parsed into.
+     */
+    default double[][] toArray() {
+        int size = size();
+        double[][] copy = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                copy[i][j] = get(i, j);
+            }
+        }
+        return copy;
+    }
+}
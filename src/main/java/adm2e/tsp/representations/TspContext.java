@@ -9,21 +9,29 @@ import java.util.Arrays;
  */
 public final class TspContext {
     private final String[] vertexLabels;
-    private final double[][] vertexDistances;
+    private final DistanceMatrix vertexDistances;
     private final DecisionRule decisionRule;
 
     public TspContext(String[] vertexLabels,
                        double[][] vertexDistances,
                        DecisionRule decisionRule) {
-        if (vertexLabels.length != vertexDistances.length
-            || vertexDistances.length != vertexDistances[0].length) {
+        this(vertexLabels, ArrayDistanceMatrix.copyOf(vertexDistances), decisionRule);
+    }
+
+    /**
+     * Distance matrices are immutable, so contexts share them instead of copying.
+     */
+    public TspContext(String[] vertexLabels,
+                      DistanceMatrix vertexDistances,
+                      DecisionRule decisionRule) {
+        if (vertexLabels.length != vertexDistances.size()) {
             throw new IllegalArgumentException(
                 "Given N vertices, the matrix of distances between them should be NxN.");
         }
 
         int numVertices = vertexLabels.length;
         this.vertexLabels = Arrays.copyOf(vertexLabels, numVertices);
-        this.vertexDistances = copySquareSymmetricArray(vertexDistances);
+        this.vertexDistances = vertexDistances;
         this.decisionRule = decisionRule;
     }
 
@@ -39,27 +47,19 @@ public final class TspContext {
         return vertexLabels[i];
     }
 
-    private static double[][] copySquareSymmetricArray(double[][] orig) {
-        int size = orig.length;
-        double[][] copy = new double[size][size];
-        for (int i = 0; i < size; i++) {
-            for (int j = i + 1; j < size; j++) {
-                copy[i][j] = orig[i][j];
-                copy[j][i] = copy[i][j];
-            }
-        }
-        return copy;
-    }
-
     /**
      * Edge weight between two vertices.
      */
     public double getDistance(int i, int j) {
-        return vertexDistances[i][j];
+        return vertexDistances.get(i, j);
     }
 
     public double[][] getVertexDistances() {
-        return copySquareSymmetricArray(vertexDistances);
+        return vertexDistances.toArray();
+    }
+
+    public DistanceMatrix getDistanceMatrix() {
+        return vertexDistances;
     }
 
     public DecisionRule getDecisionRule() {
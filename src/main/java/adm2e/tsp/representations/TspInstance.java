@@ -0,0 +1,33 @@
+package adm2e.tsp.representations;
+
+import java.util.Arrays;
+
+/**
+ * The parsed input of a TSP problem: sorted vertex labels and the distances
+ * between the vertices they name.
+ */
+public final class TspInstance {
+    private final String[] labels;
+    private final DistanceMatrix distances;
+
+    public TspInstance(String[] labels, DistanceMatrix distances) {
+        if (labels.length != distances.size()) {
+            throw new IllegalArgumentException(
+                "Given N vertices, the matrix of distances between them should be NxN.");
+        }
+        this.labels = Arrays.copyOf(labels, labels.length);
+        this.distances = distances;
+    }
+
+    public String[] getLabels() {
+        return Arrays.copyOf(labels, labels.length);
+    }
+
+    public int getNumVertices() {
+        return labels.length;
+    }
+
+    public DistanceMatrix getDistances() {
+        return distances;
+    }
+}
@@ -1,6 +1,5 @@
 package adm2e.tsp.rules;
 
-import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
 import static adm2e.tsp.rules.DecisionRule.Decision.ACCEPT;
@@ -13,6 +12,8 @@ import static adm2e.tsp.rules.DecisionRule.Decision.REJECT;
  * a worse solution starts high and gets reduced after an uninterrupted
  * sequence of acceptable state transitions. The rule decides that iteration
  * is stuck after an uninterrupted sequence of same-cost iterations.
+ * <p>Acceptance draws from a SplitMix64 stream, whose whole state is one long, so
+ * that {@link #snapshot()} can capture the rule exactly, random stream included.</p>
  */
 public final class AnnealingRule implements DecisionRule {
     // parameters for this instance
@@ -21,7 +22,7 @@ public final class AnnealingRule implements DecisionRule {
     private final double coolingRate;
 
     // state
-    private final Random random = ThreadLocalRandom.current();
+    private long randomState = ThreadLocalRandom.current().nextLong();
     private double currentTemperature;
     private int consecutiveAccepts;
     private double lastSeenCurrentCost;
@@ -47,10 +48,9 @@ public final class AnnealingRule implements DecisionRule {
         // the diff is close to zero -- solution readily moves
         // between equally good states.
         double criterion = Math.exp((currentCost - nextCost) / currentTemperature);
-        if (criterion > random.nextDouble()) {
+        if (criterion > nextRandomDouble()) {
             consecutiveAccepts++;
             if (consecutiveAccepts > consecutiveAcceptsBeforeTempReduced) {
-                System.out.println("Reducing temperature!");
                 consecutiveAccepts = 0;
                 currentTemperature = currentTemperature * coolingRate;
             }
@@ -62,9 +62,7 @@ public final class AnnealingRule implements DecisionRule {
 
     @Override
     public boolean searchBudgetExceeded() {
-        boolean exceeded = currentTemperature < AnnealingRuleParamDefaults.TEMP_LOWER_THRESHOLD;
-        if (exceeded) System.out.println("Temperature below threshold!");
-        return exceeded;
+        return currentTemperature < AnnealingRuleParamDefaults.TEMP_LOWER_THRESHOLD;
     }
 
     @Override
@@ -78,8 +76,46 @@ public final class AnnealingRule implements DecisionRule {
         if (relativeDelta < AnnealingRuleParamDefaults.RELATIVE_COST_CHANGE_LOWER_THRESHOLD) {
             consecutiveSameCurrentCost++;
         }
-        boolean stuck = consecutiveSameCurrentCost >= maxConsecutiveSameCurrentCost;
-        if (stuck) System.out.println("Solution stabilized!");
-        return stuck;
+        return consecutiveSameCurrentCost >= maxConsecutiveSameCurrentCost;
+    }
+
+    @Override
+    public double currentTemperature() {
+        return currentTemperature;
+    }
+
+    @Override
+    public void reseed(long seed) {
+        randomState = seed;
+    }
+
+    @Override
+    public long[] snapshot() {
+        return new long[] {
+            randomState,
+            Double.doubleToLongBits(currentTemperature),
+            consecutiveAccepts,
+            Double.doubleToLongBits(lastSeenCurrentCost),
+            consecutiveSameCurrentCost
+        };
+    }
+
+    @Override
+    public void restore(long[] state) {
+        if (state.length != 5) throw new IllegalArgumentException("Saved state does not belong to this rule!");
+        randomState = state[0];
+        currentTemperature = Double.longBitsToDouble(state[1]);
+        consecutiveAccepts = (int) state[2];
+        lastSeenCurrentCost = Double.longBitsToDouble(state[3]);
+        consecutiveSameCurrentCost = (int) state[4];
+    }
+
+    // Uniform in [0, 1), from the top 53 bits of the next SplitMix64 output.
+    private double nextRandomDouble() {
+        long z = (randomState += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (z >>> 11) * 0x1.0p-53;
     }
 }
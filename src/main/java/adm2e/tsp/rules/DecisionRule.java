@@ -26,4 +26,35 @@ public interface DecisionRule {
     default boolean fixedPointDetected(double currentCost, double bestCost) {
         return currentCost <= bestCost;
     }
+
+    /**
+     * Hook for rules whose acceptance criterion depends on a temperature, for
+     * instrumentation. The default is NaN, for rules without one.
+     */
+    default double currentTemperature() {
+        return Double.NaN;
+    }
+
+    /**
+     * Hook for randomized rules, so that a trial started from a seed makes the same
+     * decisions every time. The default does nothing, for rules without randomness.
+     */
+    default void reseed(long seed) {
+    }
+
+    /**
+     * Hook for rules with internal state, which a checkpoint saves so that a search
+     * resumed with {@link #restore} goes on exactly as it would have. The default is
+     * empty, for stateless rules.
+     */
+    default long[] snapshot() {
+        return new long[0];
+    }
+
+    /**
+     * Puts back state taken by {@link #snapshot()} from a rule of the same kind.
+     */
+    default void restore(long[] state) {
+        if (state.length != 0) throw new IllegalArgumentException("Saved state does not belong to this rule!");
+    }
 }
@@ -0,0 +1,82 @@
+package adm2e.tsp.service;
+
+import adm2e.tsp.ioutils.TspIoUtils;
+import adm2e.tsp.representations.TspInstance;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A least-recently-used cache of parsed instances, keyed by the SHA-256 of the text
+ * they were parsed from. Parsed instances are immutable, so any number of solvers
+ * can share a cached one.
+ */
+final class InstanceCache {
+    private final Map<String, TspInstance> instances;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    InstanceCache(int capacity) {
+        this.instances = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TspInstance> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    static String hashOf(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder(2 * digest.length);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Every JVM is required to support SHA-256.", e);
+        }
+    }
+
+    synchronized Optional<TspInstance> get(String hash) {
+        TspInstance instance = instances.get(hash);
+        if (instance == null) misses.increment();
+        else hits.increment();
+        return Optional.ofNullable(instance);
+    }
+
+    /**
+     * Parses the content and caches the result under the given hash. Parsing happens
+     * outside the lock, so two requests for the same new instance may both parse it;
+     * the second result simply replaces the first.
+     */
+    TspInstance parseAndPut(String hash, byte[] content) {
+        BufferedReader reader = new BufferedReader(
+            new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8));
+        TspInstance parsed = TspIoUtils.parseInstance(reader.lines().filter(s -> !s.isEmpty()));
+        synchronized (this) {
+            instances.put(hash, parsed);
+        }
+        return parsed;
+    }
+
+    synchronized int size() {
+        return instances.size();
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+}
@@ -0,0 +1,54 @@
+package adm2e.tsp.service;
+
+import adm2e.tsp.representations.TspInstance;
+import adm2e.tsp.rules.DecisionRule;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+// A queued request. Jobs with higher priority run first; among equals, the one
+// with the earliest deadline, and then the one submitted first.
+final class SolveJob implements Comparable<SolveJob> {
+    final String instanceHash;
+    final TspInstance instance;
+    final boolean cacheHit;
+    final Supplier<DecisionRule> decisionRuleSupplier;
+    final int numTrials;
+    final long seed;
+    final int priority;
+    final long deadlineNanos;
+    final long sequenceNumber;
+    final long submittedNanos;
+    final CompletableFuture<String> result = new CompletableFuture<>();
+
+    SolveJob(String instanceHash,
+             TspInstance instance,
+             boolean cacheHit,
+             Supplier<DecisionRule> decisionRuleSupplier,
+             int numTrials,
+             long seed,
+             int priority,
+             long deadlineNanos,
+             long sequenceNumber,
+             long submittedNanos) {
+        this.instanceHash = instanceHash;
+        this.instance = instance;
+        this.cacheHit = cacheHit;
+        this.decisionRuleSupplier = decisionRuleSupplier;
+        this.numTrials = numTrials;
+        this.seed = seed;
+        this.priority = priority;
+        this.deadlineNanos = deadlineNanos;
+        this.sequenceNumber = sequenceNumber;
+        this.submittedNanos = submittedNanos;
+    }
+
+    @Override
+    public int compareTo(SolveJob other) {
+        if (priority != other.priority) return Integer.compare(other.priority, priority);
+        // Deadlines are System.nanoTime() values, which are only comparable by difference.
+        long deadlineDiff = deadlineNanos - other.deadlineNanos;
+        if (deadlineDiff != 0) return deadlineDiff < 0 ? -1 : 1;
+        return Long.compare(sequenceNumber, other.sequenceNumber);
+    }
+}
@@ -0,0 +1,201 @@
+package adm2e.tsp.service;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * <p>A command-line client for a {@link TspServer} on the same machine, for trying it
+ * out end to end. It posts an instance file to <code>/solve</code>, prints each JSON
+ * result on stdout, and the status and round-trip time of each request on stderr.</p>
+ * <p>With <code>--repeat</code>, only the first request carries the instance; the
+ * rest send its hash, as a client that knows the server has it cached would, and
+ * fall back to sending the content if the server has evicted it. The time of the
+ * first request against the rest shows what the cache saves. Ends with the
+ * server's <code>/stats</code>.</p>
+ */
+public final class TspClient {
+    private static final Option PORT_OPTION = Option.builder("p")
+        .argName("num")
+        .desc("the port the server listens on (default: 8080)")
+        .hasArg(true)
+        .longOpt("port")
+        .numberOfArgs(1)
+        .required(false)
+        .type(Number.class)
+        .build();
+
+    private static final Option HEURISTIC_OPTION = Option.builder()
+        .argName("GREEDY|ANNEALING")
+        .desc("the heuristic to ask for (default: GREEDY)")
+        .hasArg(true)
+        .longOpt("heuristic")
+        .numberOfArgs(1)
+        .required(false)
+        .build();
+
+    private static final Option TRIALS_OPTION = Option.builder("n")
+        .argName("num")
+        .desc("the number of trials to ask for (default: 1)")
+        .hasArg(true)
+        .longOpt("trials")
+        .numberOfArgs(1)
+        .required(false)
+        .type(Number.class)
+        .build();
+
+    private static final Option SEED_OPTION = Option.builder()
+        .argName("num")
+        .desc("seed for the trials (default: chosen by the server)")
+        .hasArg(true)
+        .longOpt("seed")
+        .numberOfArgs(1)
+        .required(false)
+        .type(Number.class)
+        .build();
+
+    private static final Option PRIORITY_OPTION = Option.builder()
+        .argName("num")
+        .desc("priority of the jobs; higher runs first (default: 0)")
+        .hasArg(true)
+        .longOpt("priority")
+        .numberOfArgs(1)
+        .required(false)
+        .type(Number.class)
+        .build();
+
+    private static final Option TIMEOUT_OPTION = Option.builder()
+        .argName("millis")
+        .desc("deadline of each job (default: none)")
+        .hasArg(true)
+        .longOpt("timeout-ms")
+        .numberOfArgs(1)
+        .required(false)
+        .type(Number.class)
+        .build();
+
+    private static final Option REPEAT_OPTION = Option.builder("r")
+        .argName("num")
+        .desc("send the request this many times, the instance itself only the first time (default: 1)")
+        .hasArg(true)
+        .longOpt("repeat")
+        .numberOfArgs(1)
+        .required(false)
+        .type(Number.class)
+        .build();
+
+    private static final CommandLineParser DEFAULT_PARSER = new DefaultParser();
+    private static final HelpFormatter HELP_FORMATTER = new HelpFormatter();
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        CommandLine cli;
+        int port, repeat;
+        try {
+            cli = DEFAULT_PARSER.parse(getOptions(), args, false);
+            port = getAsInt(cli, PORT_OPTION, 8080);
+            repeat = getAsInt(cli, REPEAT_OPTION, 1);
+            if (cli.getArgs().length != 1) throw new ParseException("Expected one instance file.");
+        } catch (ParseException e) {
+            usage();
+            return;
+        }
+        byte[] content = Files.readAllBytes(Path.of(cli.getArgs()[0]));
+        String hash = InstanceCache.hashOf(content);
+        // The other options are named after the server's query parameters, so they
+        // pass straight through.
+        Map<String, String> params = new LinkedHashMap<>();
+        for (Option option : getOptions().getOptions()) {
+            if (option == PORT_OPTION || option == REPEAT_OPTION) continue;
+            String name = option.getLongOpt();
+            if (cli.hasOption(name)) params.put(name, cli.getOptionValue(name));
+        }
+        String base = "http://localhost:" + port;
+        HttpClient client = HttpClient.newHttpClient();
+        for (int i = 0; i < repeat; i++) {
+            HttpResponse<String> response;
+            if (i == 0) {
+                response = post(client, base, params, content);
+            } else {
+                Map<String, String> byHash = new LinkedHashMap<>(params);
+                byHash.put("instance", hash);
+                response = post(client, base, byHash, null);
+                if (response.statusCode() == 404) response = post(client, base, params, content);
+            }
+            System.out.print(response.body());
+        }
+        HttpResponse<String> stats = client.send(
+            HttpRequest.newBuilder(URI.create(base + "/stats")).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+        System.err.print("stats: " + stats.body());
+    }
+
+    // Posts the content, or nothing if it is null, and reports the round trip.
+    private static HttpResponse<String> post(HttpClient client,
+                                             String base,
+                                             Map<String, String> params,
+                                             byte[] content) throws IOException, InterruptedException {
+        String query = params.entrySet().stream()
+            .map(e -> URLEncoder.encode(e.getKey(), StandardCharsets.UTF_8)
+                + "=" + URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))
+            .collect(Collectors.joining("&"));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/solve?" + query))
+            .POST(content == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofByteArray(content))
+            .build();
+        long startNanos = System.nanoTime();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        System.err.printf("%s HTTP %d in %.1f ms%n",
+            content == null ? "by hash:   " : "with body: ",
+            response.statusCode(),
+            (System.nanoTime() - startNanos) / 1e6);
+        return response;
+    }
+
+    private static int getAsInt(CommandLine cli, Option option, int defaultValue)
+        throws ParseException {
+        String flag = option.getOpt() == null ? option.getLongOpt() : option.getOpt();
+        return cli.hasOption(flag)
+            ? ((Number) cli.getParsedOptionValue(flag)).intValue()
+            : defaultValue;
+    }
+
+    private static Options getOptions() {
+        Options options = new Options();
+        options.addOption(PORT_OPTION);
+        options.addOption(HEURISTIC_OPTION);
+        options.addOption(TRIALS_OPTION);
+        options.addOption(SEED_OPTION);
+        options.addOption(PRIORITY_OPTION);
+        options.addOption(TIMEOUT_OPTION);
+        options.addOption(REPEAT_OPTION);
+        return options;
+    }
+
+    private static void usage() {
+        HELP_FORMATTER.printHelp(
+            120, // width
+            TspClient.class.getName() + " INSTANCE_FILE",
+            null, // header
+            getOptions(),
+            null, // footer
+            true); // do print usage example
+    }
+}
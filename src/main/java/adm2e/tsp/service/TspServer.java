@@ -0,0 +1,245 @@
+package adm2e.tsp.service;
+
+import adm2e.tsp.ioutils.TspJson;
+import adm2e.tsp.rules.AnnealingRule;
+import adm2e.tsp.rules.DecisionRule;
+import adm2e.tsp.rules.GreedyRule;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import static adm2e.tsp.rules.AnnealingRuleParamDefaults.DEFAULT_INITIAL_TEMP;
+import static adm2e.tsp.rules.AnnealingRuleParamDefaults.DEFAULT_REDUCE_TEMP_AFTER;
+import static adm2e.tsp.rules.AnnealingRuleParamDefaults.DEFAULT_STOP_AFTER;
+import static adm2e.tsp.rules.AnnealingRuleParamDefaults.DEFAULT_TEMP_REDUCTION_FACTOR;
+
+/**
+ * <p>Serves {@link TspSolveService} over HTTP on the loopback interface.</p>
+ * <ul>
+ *     <li><code>POST /solve</code> with an instance in the usual text format as the
+ *     body, or with an empty body and <code>instance=HASH</code> to reuse an
+ *     instance sent earlier. Optional query parameters: <code>heuristic</code>
+ *     (GREEDY or ANNEALING), <code>trials</code>, <code>priority</code> (higher runs
+ *     first), <code>timeout-ms</code>, <code>seed</code>, and the annealing
+ *     parameters <code>reduce-after</code>, <code>stop-after</code>,
+ *     <code>init-temp</code> and <code>cool-rate</code>.</li>
+ *     <li><code>GET /stats</code> for queue and cache counters.</li>
+ * </ul>
+ * <p>For example: <code>curl --data-binary @data/tsp/tsp_48.txt
+ * 'localhost:8080/solve?heuristic=ANNEALING&amp;trials=3'</code>.</p>
+ */
+public final class TspServer {
+    private static final Option PORT_OPTION = Option.builder("p")
+        .argName("num")
+        .desc("the port to listen on (default: 8080)")
+        .hasArg(true)
+        .longOpt("port")
+        .numberOfArgs(1)
+        .required(false)
+        .type(Number.class)
+        .build();
+
+    private static final Option WORKERS_OPTION = Option.builder("w")
+        .argName("num")
+        .desc("the number of solver threads (default: number of processors)")
+        .hasArg(true)
+        .longOpt("workers")
+        .numberOfArgs(1)
+        .required(false)
+        .type(Number.class)
+        .build();
+
+    private static final Option QUEUE_CAPACITY_OPTION = Option.builder("q")
+        .argName("num")
+        .desc("the number of jobs that can wait for a solver before new ones are turned away (default: 64)")
+        .hasArg(true)
+        .longOpt("queue-capacity")
+        .numberOfArgs(1)
+        .required(false)
+        .type(Number.class)
+        .build();
+
+    private static final Option CACHE_SIZE_OPTION = Option.builder("c")
+        .argName("num")
+        .desc("the number of parsed instances to keep (default: 32)")
+        .hasArg(true)
+        .longOpt("cache-size")
+        .numberOfArgs(1)
+        .required(false)
+        .type(Number.class)
+        .build();
+
+    private static final CommandLineParser DEFAULT_PARSER = new DefaultParser();
+    private static final HelpFormatter HELP_FORMATTER = new HelpFormatter();
+
+    public static void main(String[] args) throws IOException {
+        CommandLine cli;
+        int port, workers, queueCapacity, cacheSize;
+        try {
+            cli = DEFAULT_PARSER.parse(getOptions(), args, false);
+            port = getAsInt(cli, PORT_OPTION, 8080);
+            workers = getAsInt(cli, WORKERS_OPTION, Runtime.getRuntime().availableProcessors());
+            queueCapacity = getAsInt(cli, QUEUE_CAPACITY_OPTION, 64);
+            cacheSize = getAsInt(cli, CACHE_SIZE_OPTION, 32);
+        } catch (ParseException e) {
+            usage();
+            return;
+        }
+        TspSolveService service = new TspSolveService(workers, queueCapacity, cacheSize);
+        HttpServer server = HttpServer.create(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        // Request threads mostly wait on solver results, so they are cheap.
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/solve", exchange -> handleSolve(service, exchange));
+        server.createContext("/stats", exchange -> respond(exchange, 200, service.statsAsJson()));
+        server.start();
+        System.out.println("Listening on " + server.getAddress());
+    }
+
+    private static void handleSolve(TspSolveService service, HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, error("Use POST."));
+            return;
+        }
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        Map<String, String> params = queryParameters(exchange.getRequestURI().getRawQuery());
+        CompletableFuture<String> result;
+        try {
+            result = service.submit(
+                body.length > 0 ? body : null,
+                params.get("instance"),
+                decisionRuleSupplier(params),
+                intParam(params, "trials", 1),
+                params.containsKey("seed")
+                    ? Long.parseLong(params.get("seed"))
+                    : ThreadLocalRandom.current().nextLong(),
+                intParam(params, "priority", 0),
+                params.containsKey("timeout-ms")
+                    ? Long.parseLong(params.get("timeout-ms"))
+                    : TspSolveService.MAX_TIMEOUT_MILLIS);
+        } catch (NoSuchElementException e) {
+            respond(exchange, 404, error(e.getMessage()));
+            return;
+        } catch (RejectedExecutionException e) {
+            respond(exchange, 503, error(e.getMessage()));
+            return;
+        } catch (RuntimeException e) {
+            respond(exchange, 400, error(String.valueOf(e.getMessage())));
+            return;
+        }
+        try {
+            respond(exchange, 200, result.get());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                respond(exchange, 504, error(e.getCause().getMessage()));
+            } else if (e.getCause() instanceof RejectedExecutionException) {
+                respond(exchange, 503, error(e.getCause().getMessage()));
+            } else {
+                respond(exchange, 500, error(String.valueOf(e.getCause().getMessage())));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, error("Server is shutting down."));
+        }
+    }
+
+    private static Supplier<DecisionRule> decisionRuleSupplier(Map<String, String> params) {
+        String heuristic = params.getOrDefault("heuristic", "GREEDY");
+        switch (heuristic) {
+            case "GREEDY":
+                return () -> GreedyRule.INSTANCE;
+            case "ANNEALING":
+                int reduceTempAfter = intParam(params, "reduce-after", DEFAULT_REDUCE_TEMP_AFTER);
+                int stopAfter = intParam(params, "stop-after", DEFAULT_STOP_AFTER);
+                double initTemp = doubleParam(params, "init-temp", DEFAULT_INITIAL_TEMP);
+                double coolFactor = doubleParam(params, "cool-rate", DEFAULT_TEMP_REDUCTION_FACTOR);
+                return () -> new AnnealingRule(reduceTempAfter, stopAfter, initTemp, coolFactor);
+            default:
+                throw new IllegalArgumentException("Unknown heuristic " + heuristic + "!");
+        }
+    }
+
+    private static Map<String, String> queryParameters(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) return params;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq < 0) continue;
+            params.put(
+                URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue) {
+        return params.containsKey(name) ? Integer.parseInt(params.get(name)) : defaultValue;
+    }
+
+    private static double doubleParam(Map<String, String> params, String name, double defaultValue) {
+        return params.containsKey(name) ? Double.parseDouble(params.get(name)) : defaultValue;
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + TspJson.quote(message) + "}";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = (json + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static int getAsInt(CommandLine cli, Option option, int defaultValue)
+        throws ParseException {
+        String flag = option.getOpt() == null ? option.getLongOpt() : option.getOpt();
+        return cli.hasOption(flag)
+            ? ((Number) cli.getParsedOptionValue(flag)).intValue()
+            : defaultValue;
+    }
+
+    private static Options getOptions() {
+        Options options = new Options();
+        options.addOption(PORT_OPTION);
+        options.addOption(WORKERS_OPTION);
+        options.addOption(QUEUE_CAPACITY_OPTION);
+        options.addOption(CACHE_SIZE_OPTION);
+        return options;
+    }
+
+    private static void usage() {
+        HELP_FORMATTER.printHelp(
+            120, // width
+            TspServer.class.getName(),
+            null, // header
+            getOptions(),
+            null, // footer
+            true); // do print usage example
+    }
+}
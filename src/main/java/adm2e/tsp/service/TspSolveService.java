@@ -0,0 +1,216 @@
+package adm2e.tsp.service;
+
+import adm2e.tsp.HeuristicTspSolver;
+import adm2e.tsp.SolverScratch;
+import adm2e.tsp.instrumentation.SearchMonitor;
+import adm2e.tsp.ioutils.TspJson;
+import adm2e.tsp.representations.TspInstance;
+import adm2e.tsp.representations.TspSolution;
+import adm2e.tsp.rules.DecisionRule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * <p>Keeps parsed instances and warmed-up solvers around between requests. Jobs go
+ * into a bounded priority queue and are picked up by a fixed set of worker threads,
+ * each with its own {@link SolverScratch}. Instances are cached by content hash, so
+ * a client that sends the same instance again (or just its hash) skips parsing.</p>
+ * <p>Deadlines are checked when a job is dequeued, and between solver iterations.
+ * A job that runs out of time mid-search returns the best tour found so far and is
+ * marked incomplete; a job that expires while still queued fails with a
+ * {@link TimeoutException}.</p>
+ * <p>Every future returned by {@link #submit} completes: a job whose solver throws
+ * anything, errors included, fails with what it threw, and jobs still queued when
+ * the service is closed fail with a {@link RejectedExecutionException}.</p>
+ */
+public final class TspSolveService implements AutoCloseable {
+    // Longer timeouts are treated as this one, so that deadlines don't overflow.
+    public static final long MAX_TIMEOUT_MILLIS = TimeUnit.DAYS.toMillis(365);
+
+    private final InstanceCache cache;
+    private final PriorityBlockingQueue<SolveJob> queue = new PriorityBlockingQueue<>();
+    private final Semaphore queueSlots;
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicLong nextSequenceNumber = new AtomicLong();
+    private final AtomicInteger running = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private volatile boolean closed;
+
+    public TspSolveService(int numWorkers, int queueCapacity, int cacheCapacity) {
+        this.cache = new InstanceCache(cacheCapacity);
+        this.queueSlots = new Semaphore(queueCapacity);
+        for (int i = 0; i < numWorkers; i++) {
+            Thread worker = new Thread(this::work, "tsp-solver-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Queues a job for the instance with the given content, or, if content is null,
+     * for a previously sent instance with the given hash.
+     * @return a future JSON result
+     * @throws IllegalArgumentException if there are no trials or no time to run them
+     * @throws NoSuchElementException if only a hash was given and it isn't cached
+     * @throws RejectedExecutionException if the queue is full or the service is closed
+     */
+    public CompletableFuture<String> submit(byte[] content,
+                                            String instanceHash,
+                                            Supplier<DecisionRule> decisionRuleSupplier,
+                                            int numTrials,
+                                            long seed,
+                                            int priority,
+                                            long timeoutMillis) {
+        if (numTrials < 1) {
+            throw new IllegalArgumentException("Jobs must run at least one trial!");
+        }
+        if (timeoutMillis <= 0) {
+            throw new IllegalArgumentException("Jobs must have a positive timeout!");
+        }
+        long now = System.nanoTime();
+        String hash;
+        TspInstance instance;
+        boolean cacheHit;
+        if (content != null) {
+            hash = InstanceCache.hashOf(content);
+            Optional<TspInstance> cached = cache.get(hash);
+            cacheHit = cached.isPresent();
+            instance = cached.orElseGet(() -> cache.parseAndPut(hash, content));
+        } else {
+            hash = instanceHash;
+            instance = cache.get(hash).orElseThrow(() ->
+                new NoSuchElementException("Instance " + instanceHash + " is not cached!"));
+            cacheHit = true;
+        }
+        if (closed) {
+            throw new RejectedExecutionException("Service is shutting down!");
+        }
+        if (!queueSlots.tryAcquire()) {
+            throw new RejectedExecutionException("Job queue is full!");
+        }
+        long deadline = now + TimeUnit.MILLISECONDS.toNanos(Math.min(timeoutMillis, MAX_TIMEOUT_MILLIS));
+        SolveJob job = new SolveJob(
+            hash, instance, cacheHit, decisionRuleSupplier, numTrials, seed,
+            priority, deadline, nextSequenceNumber.getAndIncrement(), now);
+        queue.add(job);
+        // Closing may have drained the queue just before the job went in.
+        if (closed) failPending();
+        return job.result;
+    }
+
+    public String statsAsJson() {
+        return "{\"queued\":" + queue.size()
+            + ",\"running\":" + running.get()
+            + ",\"completed\":" + completed.sum()
+            + ",\"failed\":" + failed.sum()
+            + ",\"expired\":" + expired.sum()
+            + ",\"cachedInstances\":" + cache.size()
+            + ",\"cacheHits\":" + cache.getHits()
+            + ",\"cacheMisses\":" + cache.getMisses()
+            + "}";
+    }
+
+    private void work() {
+        SolverScratch scratch = new SolverScratch();
+        while (!Thread.currentThread().isInterrupted()) {
+            SolveJob job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            queueSlots.release();
+            if (System.nanoTime() - job.deadlineNanos > 0) {
+                expired.increment();
+                job.result.completeExceptionally(
+                    new TimeoutException("Deadline passed before the job started."));
+                continue;
+            }
+            running.incrementAndGet();
+            try {
+                String result = solve(job, scratch);
+                completed.increment();
+                job.result.complete(result);
+            } catch (Throwable e) {
+                // Errors too, such as running out of memory on a huge instance: the
+                // worker lives on, and the client gets an answer instead of waiting
+                // forever.
+                failed.increment();
+                job.result.completeExceptionally(e);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    private static String solve(SolveJob job, SolverScratch scratch) {
+        long startNanos = System.nanoTime();
+        String[] labels = job.instance.getLabels();
+        HeuristicTspSolver solver = HeuristicTspSolver.create(
+            labels,
+            job.instance.getDistances(),
+            job.decisionRuleSupplier,
+            SearchMonitor.disabled(),
+            scratch);
+        TspSolution best = null;
+        boolean complete = true;
+        for (int i = 0; i < job.numTrials && complete; i++) {
+            solver = solver.reinitializedCopy(HeuristicTspSolver.deriveSeed(job.seed, i));
+            TspSolution solution = solver.getNextSolution();
+            while (!solver.reachedFixedPoint()) {
+                if (System.nanoTime() - job.deadlineNanos > 0) {
+                    complete = false;
+                    break;
+                }
+                solution = solver.getNextSolution();
+            }
+            if (best == null || solution.getCost() < best.getCost()) best = solution;
+        }
+        long endNanos = System.nanoTime();
+        return "{\"instance\":" + TspJson.quote(job.instanceHash)
+            + ",\"cacheHit\":" + job.cacheHit
+            + ",\"vertices\":" + labels.length
+            + ",\"complete\":" + complete
+            + ",\"cost\":" + TspJson.number(best.getCost())
+            + ",\"tour\":" + TspJson.tour(labels, best.getVertexVisitOrder())
+            + ",\"queuedMillis\":" + TspJson.number((startNanos - job.submittedNanos) / 1e6)
+            + ",\"solveMillis\":" + TspJson.number((endNanos - startNanos) / 1e6)
+            + "}";
+    }
+
+    /**
+     * Stops the workers after the jobs they are running, and fails the jobs that are
+     * still queued.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        workers.forEach(Thread::interrupt);
+        failPending();
+    }
+
+    private void failPending() {
+        List<SolveJob> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        for (SolveJob job : pending) {
+            queueSlots.release();
+            job.result.completeExceptionally(new RejectedExecutionException("Service is shutting down!"));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package adm2e.graph.components;
+
+import adm2e.graph.representations.CsrGraph;
+import gnu.trove.list.array.TIntArrayList;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StronglyConnectedComponentsTest {
+
+    /**
+     * Every vertex is on a small cycle, so trimming removes nothing, and forward-backward
+     * splitting peels off one tiny component at a time. That used to recurse once per
+     * component and overflow the stack.
+     */
+    @Test
+    public void parallelMatchesSequentialOnSparseGraphWithManySmallComponents() {
+        for (long seed = 1; seed <= 3; seed++) {
+            CsrGraph graph = smallCycles(50_000, 4, 50_000 / 20, seed);
+            ConnectedComponents sequential = StronglyConnectedComponents.compute(graph);
+            ConnectedComponents parallel = StronglyConnectedComponents.computeParallel(graph, new ForkJoinPool(4));
+            assertTrue(sequential.numComponents() > 10_000);
+            assertArrayEquals(sequential.getComponentIds(), parallel.getComponentIds());
+        }
+    }
+
+    @Test
+    public void parallelMatchesSequentialOnDenseGraph() {
+        CsrGraph graph = smallCycles(50_000, 4, 150_000, 42);
+        ConnectedComponents sequential = StronglyConnectedComponents.compute(graph);
+        ConnectedComponents parallel = StronglyConnectedComponents.computeParallel(graph, new ForkJoinPool(4));
+        assertArrayEquals(sequential.getComponentIds(), parallel.getComponentIds());
+    }
+
+    // Cycles of 2 to maxCycle vertices, plus the given number of random edges.
+    private static CsrGraph smallCycles(int numVertices, int maxCycle, int numRandomEdges, long seed) {
+        Random random = new Random(seed);
+        String[] labels = new String[numVertices];
+        for (int v = 0; v < numVertices; v++) {
+            labels[v] = String.valueOf(v);
+        }
+        TIntArrayList from = new TIntArrayList();
+        TIntArrayList to = new TIntArrayList();
+        for (int start = 0; start < numVertices; ) {
+            int size = Math.min(numVertices - start, 2 + random.nextInt(maxCycle - 1));
+            for (int i = 0; i < size; i++) {
+                from.add(start + i);
+                to.add(start + (i + 1) % size);
+            }
+            start += size;
+        }
+        for (int e = 0; e < numRandomEdges; e++) {
+            from.add(random.nextInt(numVertices));
+            to.add(random.nextInt(numVertices));
+        }
+        return CsrGraph.fromEdges(labels, from.toArray(), to.toArray(), false);
+    }
+}